@@ -1,4 +1,5 @@
 import { useEffect, useState } from "react";
+import { api } from "../lib/api";
 
 // Open-Meteo uses "weathercode" → map to description + emoji
 const weatherMap: Record<number, { text: string; icon: string }> = {
@@ -26,34 +27,37 @@ type Weather = {
   temperature: number;
   windspeed: number;
   weathercode: number;
+  stale?: boolean;
 };
 
-export default function WeatherCard() {
+type Props = {
+  /** Weather at this route's start point; otherwise at lat/lng (default Athens) */
+  routeId?: number;
+  lat?: number;
+  lng?: number;
+  title?: string;
+};
+
+export default function WeatherCard({ routeId, lat = 37.9838, lng = 23.7275, title = "Weather in Athens" }: Props) {
   const [data, setData] = useState<Weather | null>(null);
   const [err, setErr] = useState<string | null>(null);
 
   useEffect(() => {
-    // Athens coords (adjust if you want dynamic)
-    const url =
-      "https://api.open-meteo.com/v1/forecast?latitude=37.9838&longitude=23.7275&current_weather=true";
+    // Backend proxy: cached per area, so no browser hits Open-Meteo directly
+    const path = routeId != null
+      ? `/api/geo/routes/${routeId}/weather`
+      : `/api/geo/weather?lat=${lat}&lng=${lng}`;
 
-    fetch(url)
-      .then((r) => r.json())
-      .then((json) => {
-        if (json.current_weather) {
-          setData(json.current_weather);
-        } else {
-          setErr("No weather data");
-        }
-      })
-      .catch((e) => setErr(String(e)));
-  }, []);
+    api.get<Weather>(path)
+      .then((w) => setData(w))
+      .catch((e) => setErr(e?.body || e?.message || "No weather data"));
+  }, [routeId, lat, lng]);
 
   const w = data ? weatherMap[data.weathercode] || { text: "Unknown", icon: "❔" } : null;
 
   return (
     <div className="card" style={{ maxWidth: 300 }}>
-      <h3 style={{ marginTop: 0 }}>Weather in Athens</h3>
+      <h3 style={{ marginTop: 0 }}>{title}</h3>
       {err && <div style={{ color: "crimson" }}>{err}</div>}
       {data ? (
         <div style={{ fontSize: "1.2rem" }}>
@@ -66,6 +70,7 @@ export default function WeatherCard() {
           <div>
             💨 {data.windspeed} km/h
           </div>
+          {data.stale && <small style={{ color: "#b45309" }}>(last known, may be outdated)</small>}
         </div>
       ) : !err ? (
         <div>Loading...</div>
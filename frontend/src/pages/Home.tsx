@@ -19,17 +19,19 @@ function fmtTime(d: Date) {
   return d.toLocaleTimeString(undefined, { hour: "2-digit", minute: "2-digit", second: "2-digit" });
 }
 
-/** ---- weather via Open-Meteo (free, no API key) ---- */
-type Weather = { tempC: number; description: string } | null;
+/** ---- weather via the backend proxy (cached per area, Open-Meteo behind it) ---- */
+type Weather = { tempC: number; description: string; stale: boolean } | null;
 async function fetchWeather(lat: number, lon: number): Promise<Weather> {
-  const url = `https://api.open-meteo.com/v1/forecast?latitude=${lat}&longitude=${lon}&current=temperature_2m,weather_code`;
-  const res = await fetch(url);
-  if (!res.ok) return null;
-  const j = await res.json();
-  const t = Number(j?.current?.temperature_2m);
-  const code = Number(j?.current?.weather_code);
-  const desc = weatherCodeToText(code);
-  if (Number.isFinite(t)) return { tempC: t, description: desc };
+  try {
+    const j = await api.get<{ temperature: number; weathercode: number; stale?: boolean }>(
+      `/api/geo/weather?lat=${lat}&lng=${lon}`
+    );
+    const t = Number(j?.temperature);
+    const desc = weatherCodeToText(Number(j?.weathercode));
+    if (Number.isFinite(t)) return { tempC: t, description: desc, stale: !!j?.stale };
+  } catch {
+    // no weather is fine on the home page
+  }
   return null;
 }
 function weatherCodeToText(code: number): string {
@@ -123,6 +125,7 @@ export default function Home() {
                 <div>
                   <strong>Current:</strong> {Math.round(weather.tempC)}°C — {weather.description}
                 </div>
+                {weather.stale && <div className="muted">(last known, may be outdated)</div>}
                 <small className="muted">Data: Open-Meteo.com (no key required)</small>
               </>
             ) : (
@@ -1,34 +1,83 @@
 package com.orienteering;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 
 @SpringBootApplication
+@EnableScheduling
 public class Application {
 
+    private static final Logger log = LoggerFactory.getLogger(Application.class);
+
     public static void main(String[] args) {
-        SpringApplication.run(Application.class, args);
+        SpringApplication app = new SpringApplication(Application.class);
+        if (startupReportRequested(args)) {
+            // Per-bean / per-phase timings for StartupReportLogger and /actuator/startup
+            app.setApplicationStartup(new BufferingApplicationStartup(10_000));
+        }
+        app.run(args);
+    }
+
+    /** The fast profile, or app.startup.report=true (system property / APP_STARTUP_REPORT) */
+    private static boolean startupReportRequested(String[] args) {
+        if (Boolean.getBoolean("app.startup.report") || "true".equalsIgnoreCase(System.getenv("APP_STARTUP_REPORT"))) {
+            return true;
+        }
+        StringBuilder profiles = new StringBuilder()
+                .append(System.getProperty("spring.profiles.active", "")).append(',')
+                .append(System.getenv().getOrDefault("SPRING_PROFILES_ACTIVE", ""));
+        for (String arg : args) {
+            if (arg.startsWith("--spring.profiles.active=")) profiles.append(',').append(arg.substring(25));
+        }
+        for (String p : profiles.toString().split(",")) {
+            if ("fast".equals(p.trim())) return true;
+        }
+        return false;
     }
 
     @Bean
-    CommandLineRunner dbProbe(DataSource dataSource) {
+    CommandLineRunner dbProbe(DataSource dataSource,
+                              @Value("${app.startup.async-db-probe:false}") boolean async) {
         return args -> {
-            try (var conn = dataSource.getConnection();
-                 var st = conn.createStatement();
-                 ResultSet rs = st.executeQuery(
-                         "select version(), current_database(), current_user"
-                 )) {
-                if (rs.next()) {
-                    System.out.println("✅ JDBC OK -> DB=" + rs.getString(2)
-                            + " | user=" + rs.getString(3));
-                    System.out.println("PostgreSQL: " + rs.getString(1));
-                }
+            if (!async) {
+                probe(dataSource);
+                return;
             }
+            // Fast profile: do not hold up readiness on the first connection
+            Thread t = new Thread(() -> {
+                try {
+                    probe(dataSource);
+                } catch (SQLException ex) {
+                    log.warn("JDBC probe failed: {}", ex.getMessage());
+                }
+            }, "db-probe");
+            t.setDaemon(true);
+            t.start();
         };
     }
+
+    private static void probe(DataSource dataSource) throws SQLException {
+        try (var conn = dataSource.getConnection();
+             var st = conn.createStatement();
+             ResultSet rs = st.executeQuery(
+                     "select version(), current_database(), current_user"
+             )) {
+            if (rs.next()) {
+                System.out.println("✅ JDBC OK -> DB=" + rs.getString(2)
+                        + " | user=" + rs.getString(3));
+                System.out.println("PostgreSQL: " + rs.getString(1));
+            }
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package com.orienteering.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD concurrency limit driven by observed latency. While responses stay under the
+ * target the limit creeps up; once the smoothed latency crosses it (typically because
+ * requests queue for a DB connection) the limit is cut and excess requests are shed.
+ */
+final class AdaptiveLoadShedder {
+
+    private static final long DECREASE_COOLDOWN_NANOS = 100_000_000L;
+
+    private final long targetLatencyNanos;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+    private final AtomicLong ewmaLatencyNanos = new AtomicLong();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+
+    AdaptiveLoadShedder(long targetLatencyMs, int minLimit, int maxLimit) {
+        this.targetLatencyNanos = targetLatencyMs * 1_000_000L;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(maxLimit));
+    }
+
+    /** @return false when the request should be shed */
+    boolean tryEnter() {
+        int limit = (int) limit();
+        for (;;) {
+            int n = inFlight.get();
+            if (n >= limit) return false;
+            if (inFlight.compareAndSet(n, n + 1)) return true;
+        }
+    }
+
+    void exit(long latencyNanos) {
+        inFlight.decrementAndGet();
+
+        // EWMA with alpha = 1/8; racy updates only lose a sample now and then
+        long prev = ewmaLatencyNanos.get();
+        long smoothed = prev == 0 ? latencyNanos : prev + ((latencyNanos - prev) >> 3);
+        ewmaLatencyNanos.set(smoothed);
+
+        if (smoothed > targetLatencyNanos) {
+            long now = System.nanoTime();
+            long last = lastDecreaseNanos.get();
+            if (now - last > DECREASE_COOLDOWN_NANOS && lastDecreaseNanos.compareAndSet(last, now)) {
+                updateLimit(l -> Math.max(minLimit, l * 0.9));
+            }
+        } else {
+            updateLimit(l -> Math.min(maxLimit, l + 1.0 / l));
+        }
+    }
+
+    double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void updateLimit(java.util.function.DoubleUnaryOperator f) {
+        for (;;) {
+            long bits = limitBits.get();
+            long next = Double.doubleToLongBits(f.applyAsDouble(Double.longBitsToDouble(bits)));
+            if (bits == next || limitBits.compareAndSet(bits, next)) return;
+        }
+    }
+}
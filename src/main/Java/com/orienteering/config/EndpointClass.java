@@ -0,0 +1,15 @@
+package com.orienteering.config;
+
+/**
+ * Rate-limit / load-shedding class of an API endpoint, declared on the handler with
+ * {@link RateLimitClass}. Unannotated reads are DETAILS and unannotated writes WRITE.
+ */
+public enum EndpointClass {
+    LIST,
+    DETAILS,
+    /** Spatial and compute-heavy reads (tiles, profiles, loops, similarity) */
+    GEOM,
+    WRITE,
+    /** File transfers and dumps: long by nature, so token bucket only, never latency-shed */
+    STREAM
+}
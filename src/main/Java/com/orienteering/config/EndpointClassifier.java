@@ -0,0 +1,81 @@
+package com.orienteering.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps a request to its {@link EndpointClass} from the {@link RateLimitClass}
+ * annotations on the controllers: the handler mappings are read once (on first use,
+ * when MVC is up) into path patterns, most specific first. This runs in a filter,
+ * ahead of the dispatcher, so it matches patterns rather than resolving handlers.
+ */
+@Component
+public class EndpointClassifier {
+
+    private record Rule(Set<RequestMethod> methods, PathPattern pattern, EndpointClass endpointClass) {}
+
+    private final ObjectProvider<RequestMappingHandlerMapping> handlerMapping;
+    private volatile List<Rule> rules;
+
+    public EndpointClassifier(
+            @Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping) {
+        this.handlerMapping = handlerMapping;
+    }
+
+    public EndpointClass classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        PathContainer path = PathContainer.parsePath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        for (Rule rule : rules()) {
+            if (!rule.methods().isEmpty() && rule.methods().stream().noneMatch(m -> m.name().equalsIgnoreCase(method))) {
+                continue;
+            }
+            if (rule.pattern().matches(path)) return rule.endpointClass();
+        }
+        boolean read = "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method);
+        return read ? EndpointClass.DETAILS : EndpointClass.WRITE;
+    }
+
+    private List<Rule> rules() {
+        List<Rule> r = rules;
+        if (r == null) {
+            r = load();
+            rules = r;
+        }
+        return r;
+    }
+
+    private List<Rule> load() {
+        RequestMappingHandlerMapping mapping = handlerMapping.getIfAvailable();
+        if (mapping == null) return List.of();
+        List<Rule> out = new ArrayList<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> e : mapping.getHandlerMethods().entrySet()) {
+            HandlerMethod hm = e.getValue();
+            RateLimitClass ann = AnnotatedElementUtils.findMergedAnnotation(hm.getMethod(), RateLimitClass.class);
+            if (ann == null) ann = AnnotatedElementUtils.findMergedAnnotation(hm.getBeanType(), RateLimitClass.class);
+            if (ann == null) continue;
+            Set<RequestMethod> methods = e.getKey().getMethodsCondition().getMethods();
+            for (String pattern : e.getKey().getPatternValues()) {
+                out.add(new Rule(methods, PathPatternParser.defaultInstance.parse(pattern), ann.value()));
+            }
+        }
+        out.sort(Comparator.comparing(Rule::pattern, PathPattern.SPECIFICITY_COMPARATOR));
+        return List.copyOf(out);
+    }
+}
@@ -0,0 +1,149 @@
+package com.orienteering.config;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
+
+/**
+ * Continuous Flight Recorder recording with the JDK's low-overhead "default" settings
+ * plus {@link HotPathEvent}s above app.jfr.threshold-ms, kept for app.jfr.max-age on
+ * disk. {@link #dump} writes the last few minutes to a .jfr file for post-hoc
+ * analysis of an incident (JDK Mission Control, or {@code jfr print}); dumps are
+ * deleted after app.jfr.dump-retention-hours.
+ */
+@Component
+public class FlightRecorderConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderConfig.class);
+    private static final String RECORDING_NAME = "orienteering-continuous";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final boolean enabled;
+    private final Duration threshold;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final Path dumpDir;
+    private final Duration dumpRetention;
+
+    private Recording recording;
+
+    public FlightRecorderConfig(
+            @Value("${app.jfr.enabled:true}") boolean enabled,
+            @Value("${app.jfr.threshold-ms:20}") long thresholdMs,
+            @Value("${app.jfr.max-age-minutes:30}") long maxAgeMinutes,
+            @Value("${app.jfr.max-size-mb:256}") long maxSizeMb,
+            @Value("${app.jfr.dump-dir:}") String dumpDir,
+            @Value("${app.jfr.dump-retention-hours:24}") long dumpRetentionHours
+    ) {
+        this.enabled = enabled;
+        this.threshold = Duration.ofMillis(Math.max(0, thresholdMs));
+        this.maxAge = Duration.ofMinutes(Math.max(1, maxAgeMinutes));
+        this.maxSizeBytes = Math.max(16, maxSizeMb) * 1024 * 1024;
+        this.dumpDir = dumpDir.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "orienteering-jfr")
+                : Path.of(dumpDir);
+        this.dumpRetention = Duration.ofHours(Math.max(1, dumpRetentionHours));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || recording != null) return;
+        try {
+            Recording r = new Recording(Configuration.getConfiguration("default"));
+            r.setName(RECORDING_NAME);
+            r.setToDisk(true);
+            r.setMaxAge(maxAge);
+            r.setMaxSize(maxSizeBytes);
+            r.enable(HotPathEvent.class).withThreshold(threshold);
+            r.start();
+            recording = r;
+            log.info("Continuous JFR recording started (max age {}, hot path threshold {} ms)",
+                    maxAge, threshold.toMillis());
+        } catch (Exception ex) {
+            // e.g. a JVM without JFR; the events then cost nothing and are never written
+            log.warn("Could not start JFR recording: {}", ex.toString());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (recording != null) recording.close();
+        recording = null;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Writes the last {@code minutes} of the continuous recording to a new file in
+     * app.jfr.dump-dir (through the JFR.dump diagnostic command, which can cut a
+     * time window) and returns it.
+     */
+    public synchronized Path dump(int minutes) throws IOException {
+        if (recording == null) throw new IllegalStateException("No JFR recording is running");
+        if (minutes < 1 || minutes > maxAge.toMinutes()) {
+            throw new IllegalArgumentException("minutes must be between 1 and " + maxAge.toMinutes());
+        }
+        Files.createDirectories(dumpDir);
+        Path file = dumpDir.resolve("orienteering-" + LocalDateTime.now().format(FILE_TIME) + "-" + minutes + "m.jfr");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"), "jfrDump",
+                    new Object[]{new String[]{
+                            "name=" + RECORDING_NAME,
+                            "filename=" + file.toAbsolutePath(),
+                            "begin=-" + minutes + "m"}},
+                    new String[]{String[].class.getName()});
+        } catch (Exception ex) {
+            throw new IOException("JFR dump failed: " + ex.getMessage(), ex);
+        }
+        if (!Files.exists(file)) throw new IOException("JFR dump produced no file");
+        return file;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jfr.cleanup-interval-ms:3600000}")
+    public void purgeExpiredDumps() {
+        if (!Files.isDirectory(dumpDir)) return;
+        FileTime cutoff = FileTime.from(Instant.now().minus(dumpRetention));
+        try (Stream<Path> files = Files.list(dumpDir)) {
+            files.filter(p -> p.getFileName().toString().endsWith(".jfr"))
+                    .filter(p -> {
+                        try {
+                            return Files.getLastModifiedTime(p).compareTo(cutoff) < 0;
+                        } catch (IOException ex) {
+                            return false;
+                        }
+                    })
+                    .forEach(p -> {
+                        try {
+                            Files.deleteIfExists(p);
+                        } catch (IOException ex) {
+                            log.warn("Could not delete expired JFR dump {}: {}", p, ex.getMessage());
+                        }
+                    });
+        } catch (IOException ex) {
+            log.warn("Could not list JFR dump dir {}: {}", dumpDir, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.orienteering.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event around the request stages that show up in latency spikes:
+ * WKT parsing, JWT verification, route loads and response serialization. The event's
+ * own duration is the stage time; events faster than the threshold (set by
+ * {@link FlightRecorderConfig}) are dropped before anything is written, so the
+ * steady-state cost is two timestamp reads.
+ * <pre>
+ * HotPathEvent e = HotPathEvent.start(HotPathEvent.WKT_PARSE);
+ * try { ... } finally { e.finish(routeId, vertexCount, bytes); }
+ * </pre>
+ */
+@Name("com.orienteering.HotPath")
+@Label("Hot Path Stage")
+@Category("Orienteering")
+@Description("A request stage that took longer than the configured threshold")
+@StackTrace(false)
+@Threshold("20 ms")
+public class HotPathEvent extends Event {
+
+    public static final String WKT_PARSE = "wkt-parse";
+    public static final String JWT_VERIFY = "jwt-verify";
+    public static final String DB_LOAD = "db-load";
+    public static final String SERIALIZE = "serialize";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Route Id")
+    long routeId;
+
+    @Label("Vertex Count")
+    int vertexCount;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    public static HotPathEvent start(String stage) {
+        HotPathEvent e = new HotPathEvent();
+        e.stage = stage;
+        e.begin();
+        return e;
+    }
+
+    /** Ends the stage and commits it if it was slow enough; pass 0 for unknown values. */
+    public void finish(long routeId, int vertexCount, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.routeId = routeId;
+            this.vertexCount = vertexCount;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
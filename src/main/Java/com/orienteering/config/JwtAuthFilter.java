@@ -55,6 +55,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         String token = header.substring(7);
+        HotPathEvent event = HotPathEvent.start(HotPathEvent.JWT_VERIFY);
         try {
             String username = jwtService.extractUsername(token);
             boolean valid = (username != null) && jwtService.isValid(token, username);
@@ -76,6 +77,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             }
         } catch (Exception ignored) {
             // swallow; protected endpoints will still 401/403 as needed
+        } finally {
+            event.finish(0, 0, token.length());
         }
 
         chain.doFilter(request, response);
@@ -0,0 +1,42 @@
+package com.orienteering.config;
+
+import com.orienteering.service.DemTileCache;
+import com.orienteering.service.LoopRouteService;
+import com.orienteering.service.RouteSimilarityService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * With spring.main.lazy-initialization (the fast profile) beans are created on first
+ * use. These are not: the heavy singletons, whose first use would otherwise load the
+ * trail graph, set up the DEM cache or start the similarity pool inside a request, and
+ * beans with @Scheduled methods, which are only scheduled once the bean exists.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyInitConfig {
+
+    private static final Set<Class<?>> EAGER = Set.of(
+            LoopRouteService.class,
+            DemTileCache.class,
+            RouteSimilarityService.class
+    );
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerSingletons() {
+        return (beanName, definition, beanType) -> {
+            if (beanType == null) return false;
+            Class<?> type = ClassUtils.getUserClass(beanType);
+            return EAGER.contains(type) || hasScheduledMethods(type);
+        };
+    }
+
+    private static boolean hasScheduledMethods(Class<?> type) {
+        return Arrays.stream(type.getDeclaredMethods()).anyMatch(m -> m.isAnnotationPresent(Scheduled.class));
+    }
+}
@@ -0,0 +1,14 @@
+package com.orienteering.config;
+
+import java.lang.annotation.*;
+
+/**
+ * Puts a handler method (or every method of a controller) in an {@link EndpointClass};
+ * {@link EndpointClassifier} turns these into path patterns for {@link RateLimitFilter}.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimitClass {
+    EndpointClass value();
+}
@@ -0,0 +1,180 @@
+package com.orienteering.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-client token buckets (per user when authenticated, per IP otherwise) for each
+ * endpoint class, plus adaptive load shedding when API latency climbs. Each class is
+ * shed on its own latency, so slow loop routing does not throttle route lists;
+ * STREAM endpoints (file transfers, dumps) are never shed.
+ * Runs right after {@link JwtAuthFilter} so the principal is already known.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final int maxClients;
+    private final long idleNanos;
+    private final Map<EndpointClass, TokenBucket.Limit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, TokenBucket> overflow = new EnumMap<>(EndpointClass.class);
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final Map<EndpointClass, AdaptiveLoadShedder> shedders = new EnumMap<>(EndpointClass.class);
+    private final EndpointClassifier classifier;
+
+    private final Counter limited;
+    private final Counter shed;
+
+    public RateLimitFilter(
+            Environment env,
+            MeterRegistry meterRegistry,
+            EndpointClassifier classifier,
+            @Value("${app.ratelimit.enabled:true}") boolean enabled,
+            @Value("${app.ratelimit.max-clients:100000}") int maxClients,
+            @Value("${app.ratelimit.idle-seconds:600}") long idleSeconds,
+            @Value("${app.ratelimit.shed.target-latency-ms:250}") long targetLatencyMs,
+            @Value("${app.ratelimit.shed.min-concurrency:8}") int minConcurrency,
+            @Value("${app.ratelimit.shed.max-concurrency:200}") int maxConcurrency
+    ) {
+        this.enabled = enabled;
+        this.maxClients = maxClients;
+        this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        this.classifier = classifier;
+
+        limits.put(EndpointClass.LIST, limit(env, "list", 5, 20));
+        limits.put(EndpointClass.DETAILS, limit(env, "details", 20, 50));
+        limits.put(EndpointClass.GEOM, limit(env, "geom", 10, 30));
+        limits.put(EndpointClass.WRITE, limit(env, "write", 2, 10));
+        limits.put(EndpointClass.STREAM, limit(env, "stream", 1, 5));
+        long now = System.nanoTime();
+        for (EndpointClass c : EndpointClass.values()) overflow.put(c, new TokenBucket(now));
+        for (EndpointClass c : EndpointClass.values()) {
+            if (c == EndpointClass.STREAM) continue;
+            String name = c.name().toLowerCase();
+            long target = env.getProperty("app.ratelimit." + name + ".target-latency-ms", Long.class, targetLatencyMs);
+            AdaptiveLoadShedder shedder = new AdaptiveLoadShedder(target, minConcurrency, maxConcurrency);
+            shedders.put(c, shedder);
+            Gauge.builder("ratelimit.concurrency.limit", shedder, AdaptiveLoadShedder::limit)
+                    .tag("class", name)
+                    .register(meterRegistry);
+        }
+
+        this.limited = meterRegistry.counter("ratelimit.limited");
+        this.shed = meterRegistry.counter("ratelimit.shed");
+        Gauge.builder("ratelimit.clients", buckets, Map::size).register(meterRegistry);
+    }
+
+    private static TokenBucket.Limit limit(Environment env, String name, double perSecond, int burst) {
+        return TokenBucket.Limit.of(
+                env.getProperty("app.ratelimit." + name + ".per-second", Double.class, perSecond),
+                env.getProperty("app.ratelimit." + name + ".burst", Integer.class, burst));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !enabled
+                || "OPTIONS".equalsIgnoreCase(request.getMethod())
+                || !uri.startsWith("/api/")
+                || uri.startsWith("/api/auth/"); // login has its own bounded pool
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain chain
+    ) throws ServletException, IOException {
+
+        EndpointClass endpoint = classifier.classify(request);
+        long now = System.nanoTime();
+        long waitNanos = bucketFor(endpoint, clientKey(request), now).tryAcquire(now, limits.get(endpoint));
+        if (waitNanos > 0) {
+            limited.increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            reject(response, 429, retryAfter, "Too many requests");
+            return;
+        }
+
+        AdaptiveLoadShedder shedder = shedders.get(endpoint);
+        if (shedder == null) {
+            // STREAM: long by nature, its latency says nothing about overload
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!shedder.tryEnter()) {
+            shed.increment();
+            reject(response, 503, 1, "Server busy, please retry");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            shedder.exit(System.nanoTime() - start);
+        }
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getName())) {
+            return "u:" + auth.getName().toLowerCase();
+        }
+        // Behind a proxy, set server.forward-headers-strategy so this is the client IP
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private TokenBucket bucketFor(EndpointClass endpoint, String client, long now) {
+        String key = endpoint.name() + '|' + client;
+        TokenBucket b = buckets.get(key);
+        if (b != null) return b;
+
+        if (buckets.size() >= maxClients) {
+            sweep(now);
+            // Still full: unknown clients share one bucket rather than growing the map
+            if (buckets.size() >= maxClients) return overflow.get(endpoint);
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(now));
+    }
+
+    /** Drops idle buckets; a single thread sweeps while the others carry on. */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            long cutoff = now - idleNanos;
+            buckets.values().removeIf(b -> b.idleSince(cutoff));
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static void reject(HttpServletResponse response, int status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,61 @@
+package com.orienteering.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each user last wrote, so that their reads can stay on the primary
+ * until the replica has had time to catch up (read-your-writes).
+ * State is per node; writes made on other nodes are recorded as they arrive on the
+ * route invalidation bus, which is close enough given the window.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    /** Above this many tracked users, expired entries are purged on the next write. */
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final ConcurrentHashMap<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(
+            @Value("${app.datasource.replica.read-your-writes-ms:5000}") long windowMs) {
+        this.windowNanos = windowMs * 1_000_000L;
+    }
+
+    public void recordWrite(String username) {
+        if (username == null || windowNanos <= 0) return;
+        long now = System.nanoTime();
+        lastWriteNanos.put(username.toLowerCase(), now);
+        if (lastWriteNanos.size() > PURGE_THRESHOLD) {
+            lastWriteNanos.values().removeIf(t -> now - t > windowNanos);
+        }
+    }
+
+    /**
+     * Starts the window when the surrounding transaction commits, i.e. once the write
+     * is actually visible on the primary (right away when there is no transaction).
+     */
+    public void recordWriteAfterCommit(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordWrite(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordWrite(username);
+            }
+        });
+    }
+
+    public boolean recentlyWrote(String username) {
+        if (username == null) return false;
+        Long t = lastWriteNanos.get(username.toLowerCase());
+        return t != null && System.nanoTime() - t <= windowNanos;
+    }
+}
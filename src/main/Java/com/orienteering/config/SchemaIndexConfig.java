@@ -0,0 +1,95 @@
+package com.orienteering.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Indexes that ddl-auto cannot express (GiST, partial, covering) and backfills for
+ * derived columns. Every statement is idempotent and runs after Hibernate has
+ * updated the schema.
+ */
+@Configuration
+public class SchemaIndexConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaIndexConfig.class);
+
+    static final List<String> STATEMENTS = List.of(
+            // Envelope pruning for similar/duplicate route search
+            "CREATE INDEX IF NOT EXISTS idx_routes_geom ON routes USING GIST (geom)",
+            // Nearby search: KNN (<->) in meters over public routes only
+            "CREATE INDEX IF NOT EXISTS idx_routes_geog_public ON routes USING GIST (geography(geom)) WHERE is_public",
+
+            // Geometry read model (Route.setGeom maintains it for new writes)
+            """
+            UPDATE routes SET
+                geom_wkt = ST_AsText(geom),
+                geom_polyline = ST_AsEncodedPolyline(geom, 5),
+                bbox_min_lng = ST_XMin(geom), bbox_min_lat = ST_YMin(geom),
+                bbox_max_lng = ST_XMax(geom), bbox_max_lat = ST_YMax(geom),
+                start_lng = ST_X(ST_StartPoint(geom)), start_lat = ST_Y(ST_StartPoint(geom)),
+                end_lng = ST_X(ST_EndPoint(geom)), end_lat = ST_Y(ST_EndPoint(geom)),
+                vertex_count = ST_NPoints(geom)
+            WHERE geom IS NOT NULL AND vertex_count IS NULL
+            """,
+
+            // Change feed: cursor scans answered from the index alone
+            "CREATE INDEX IF NOT EXISTS idx_route_changes_cursor ON route_changes (tx_id, seq)"
+                    + " INCLUDE (route_id, op, owner_username, is_public, was_public)",
+            "CREATE INDEX IF NOT EXISTS idx_route_changes_route ON route_changes (route_id)",
+            // Retention: the newest expired tombstone; older cursors must sync from scratch
+            "CREATE TABLE IF NOT EXISTS route_change_horizon (id int PRIMARY KEY, tx_id bigint NOT NULL, seq bigint NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS idx_route_changes_changed_at ON route_changes (changed_at)",
+            // Seed the feed with routes that predate it
+            """
+            INSERT INTO route_changes (route_id, owner_username, op, was_public, is_public, changed_at)
+            SELECT r.id, r.owner_username, 'CREATED', false, r.is_public, now()
+            FROM routes r
+            WHERE NOT EXISTS (SELECT 1 FROM route_changes c WHERE c.route_id = r.id)
+            """,
+
+            // Per-user stats: recomputes and reconciliation aggregate one owner's routes
+            "CREATE INDEX IF NOT EXISTS idx_routes_owner_lower ON routes (lower(owner_username))",
+
+            // Trending: window scans and retention deletes by bucket
+            "CREATE INDEX IF NOT EXISTS idx_route_view_buckets_bucket ON route_view_buckets (bucket_start)",
+
+            // Tracks: chunk lookup by time window, tracks per route, cleanup with their route
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_track_chunks_track_seq ON track_chunks (track_id, seq)",
+            "CREATE INDEX IF NOT EXISTS idx_tracks_route ON tracks (route_id, started_at DESC)",
+            // Encoded chunks do not compress further; store them out of line without trying
+            "ALTER TABLE track_chunks ALTER COLUMN data SET STORAGE EXTERNAL",
+            """
+            DO $$ BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_tracks_route') THEN
+                    ALTER TABLE tracks ADD CONSTRAINT fk_tracks_route
+                        FOREIGN KEY (route_id) REFERENCES routes (id) ON DELETE CASCADE;
+                END IF;
+                IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_track_chunks_track') THEN
+                    ALTER TABLE track_chunks ADD CONSTRAINT fk_track_chunks_track
+                        FOREIGN KEY (track_id) REFERENCES tracks (id) ON DELETE CASCADE;
+                END IF;
+            END $$
+            """
+    );
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.schema", name = "apply-on-startup", matchIfMissing = true)
+    CommandLineRunner schemaIndexes(JdbcTemplate jdbc) {
+        return args -> {
+            for (String sql : STATEMENTS) {
+                try {
+                    jdbc.execute(sql);
+                } catch (Exception ex) {
+                    log.warn("Schema statement failed: {} ({})", sql, ex.getMessage());
+                }
+            }
+        };
+    }
+}
@@ -15,9 +15,11 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
 
-    public SecurityConfig(JwtAuthFilter jwtAuthFilter) {
+    public SecurityConfig(JwtAuthFilter jwtAuthFilter, RateLimitFilter rateLimitFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     @Bean
@@ -39,13 +41,34 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/api/auth/register").permitAll()
                         .requestMatchers(HttpMethod.GET,  "/api/auth/me").permitAll()
 
+                        // Liveness for load balancers; other actuator endpoints need auth
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+
+                        // Weather proxy (cached, no personal data)
+                        .requestMatchers(HttpMethod.GET, "/api/geo/weather", "/api/geo/routes/*/weather").permitAll()
+
+                        // Heatmap tiles and start clusters aggregate public routes only
+                        .requestMatchers(HttpMethod.GET, "/api/geo/heatmap/**", "/api/geo/routes/clusters").permitAll()
+
+                        // Offline bundles (public routes only); building one needs an account
+                        .requestMatchers(HttpMethod.GET, "/api/bundles/**").permitAll()
+
+                        // Public tracks (uploading one needs an account)
+                        .requestMatchers(HttpMethod.GET, "/api/tracks", "/api/tracks/**").permitAll()
+
                         // Public routes (list/details)
                         .requestMatchers(HttpMethod.GET, "/api/routes/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/routes/batch").permitAll()
+
+                        // Operational endpoints (JFR dumps) need the ADMIN role claim
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
 
                         // Everything else requires auth
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Rate limiting needs the principal, so it runs after JWT parsing
+                .addFilterAfter(rateLimitFilter, JwtAuthFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,64 @@
+package com.orienteering.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Logs the slowest startup steps (bean instantiations and context phases) when the
+ * application was started with a {@link BufferingApplicationStartup}; see
+ * Application.main. The full timeline is at /actuator/startup.
+ */
+@Component
+public class StartupReportLogger {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReportLogger.class);
+
+    private final int top;
+
+    public StartupReportLogger(@Value("${app.startup.report-top:15}") int top) {
+        this.top = top;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup buffering)) {
+            return;
+        }
+        // getBufferedTimeline does not drain, so the actuator endpoint still sees everything
+        StartupTimeline timeline = buffering.getBufferedTimeline();
+        List<StartupTimeline.TimelineEvent> slowest = timeline.getEvents().stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(top)
+                .toList();
+
+        StringBuilder sb = new StringBuilder("Slowest startup steps:");
+        for (StartupTimeline.TimelineEvent e : slowest) {
+            sb.append(String.format("%n  %6d ms  %s", e.getDuration().toMillis(), describe(e.getStartupStep())));
+        }
+        Duration total = Duration.between(timeline.getStartTime(), Instant.now());
+        log.info("Ready in {} ms. {}", total.toMillis(), sb);
+    }
+
+    private static String describe(StartupStep step) {
+        StringBuilder sb = new StringBuilder(step.getName());
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey()) || "beanType".equals(tag.getKey())) {
+                sb.append(' ').append(tag.getValue());
+                break;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.orienteering.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: the whole state is one "theoretical
+ * arrival time", advanced with a CAS, so acquiring never blocks or allocates.
+ */
+final class TokenBucket {
+
+    private final AtomicLong tat;
+    private volatile long lastUsedNanos;
+
+    TokenBucket(long nowNanos) {
+        this.tat = new AtomicLong(nowNanos);
+        this.lastUsedNanos = nowNanos;
+    }
+
+    /**
+     * @return 0 when a token was taken, otherwise nanos until the next one is available
+     */
+    long tryAcquire(long nowNanos, Limit limit) {
+        lastUsedNanos = nowNanos;
+        for (;;) {
+            long current = tat.get();
+            long base = Math.max(current, nowNanos);
+            long wait = base - nowNanos - limit.burstToleranceNanos();
+            if (wait > 0) return wait;
+            if (tat.compareAndSet(current, base + limit.intervalNanos())) return 0;
+        }
+    }
+
+    boolean idleSince(long cutoffNanos) {
+        return lastUsedNanos - cutoffNanos < 0;
+    }
+
+    /** Refill interval and burst allowance for one endpoint class. */
+    record Limit(long intervalNanos, long burstToleranceNanos) {
+        static Limit of(double perSecond, int burst) {
+            long interval = (long) (1_000_000_000L / Math.max(perSecond, 0.001));
+            return new Limit(interval, interval * Math.max(burst - 1, 0));
+        }
+    }
+}
@@ -1,7 +1,11 @@
 // src/main/java/com/orienteering/domain/Route.java
 package com.orienteering.domain;
 
+import com.orienteering.geo.PackedGeometries;
+import com.orienteering.geo.PolylineCodec;
 import jakarta.persistence.*;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.LineString;
 
 import java.time.LocalDateTime;
@@ -34,6 +38,69 @@ public class Route {
     @Column(name = "geom")
     private LineString geom;
 
+    // Read model derived from geom in setGeom, so reads can skip decoding it
+    // (backfilled for older rows by SchemaIndexConfig)
+    @Column(name = "geom_wkt", columnDefinition = "text")
+    private String geomWkt;
+
+    @Column(name = "geom_polyline", columnDefinition = "text")
+    private String geomPolyline;
+
+    @Column(name = "bbox_min_lng")
+    private Double bboxMinLng;
+
+    @Column(name = "bbox_min_lat")
+    private Double bboxMinLat;
+
+    @Column(name = "bbox_max_lng")
+    private Double bboxMaxLng;
+
+    @Column(name = "bbox_max_lat")
+    private Double bboxMaxLat;
+
+    @Column(name = "start_lng")
+    private Double startLng;
+
+    @Column(name = "start_lat")
+    private Double startLat;
+
+    @Column(name = "end_lng")
+    private Double endLng;
+
+    @Column(name = "end_lat")
+    private Double endLat;
+
+    @Column(name = "vertex_count")
+    private Integer vertexCount;
+
+    // Derived from geom + DEM tiles (null when no elevation data covers the route)
+    @Column(name = "ascent_meters")
+    private Integer ascentMeters;
+
+    @Column(name = "descent_meters")
+    private Integer descentMeters;
+
+    // Packed (distance, elevation) float pairs, see ElevationService
+    @Column(name = "elevation_profile")
+    private byte[] elevationProfile;
+
+    // Optimistic locking: PUT goes through JPA, PATCH checks it in its UPDATE (see RouteCommands)
+    @Version
+    @Column(name = "version", columnDefinition = "bigint not null default 0")
+    private Long version;
+
+    // READY unless a large geometry upload is still being processed (null on rows from before statuses)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16)
+    private RouteStatus status;
+
+    @Column(name = "processing_error", length = 500)
+    private String processingError;
+
+    // Raw WKT waiting for the geometry pipeline; cleared once processed
+    @Column(name = "pending_geom_wkt", columnDefinition = "text")
+    private String pendingGeomWkt;
+
     // ---- getters / setters ----
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -54,5 +121,74 @@ public class Route {
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
     public LineString getGeom() { return geom; }
-    public void setGeom(LineString geom) { this.geom = geom; }
+    public void setGeom(LineString geom) {
+        setGeom(geom, geom == null ? null : geom.getEnvelopeInternal());
+    }
+
+    /** Sets the geometry and its read-model columns; envelope must be geom's envelope. */
+    public void setGeom(LineString geom, Envelope envelope) {
+        this.geom = PackedGeometries.pack(geom);
+        if (geom == null || geom.isEmpty()) {
+            geomWkt = geomPolyline = null;
+            bboxMinLng = bboxMinLat = bboxMaxLng = bboxMaxLat = null;
+            startLng = startLat = endLng = endLat = null;
+            vertexCount = null;
+            return;
+        }
+        CoordinateSequence cs = geom.getCoordinateSequence();
+        int n = cs.size();
+        geomWkt = geom.toText();
+        geomPolyline = PolylineCodec.encode(cs);
+        bboxMinLng = envelope.getMinX();
+        bboxMinLat = envelope.getMinY();
+        bboxMaxLng = envelope.getMaxX();
+        bboxMaxLat = envelope.getMaxY();
+        startLng = cs.getX(0);
+        startLat = cs.getY(0);
+        endLng = cs.getX(n - 1);
+        endLat = cs.getY(n - 1);
+        vertexCount = n;
+    }
+
+    /**
+     * hibernate-spatial decodes into one Coordinate object per vertex; repack so loaded
+     * routes (and everything that holds on to their geometry) use the compact form.
+     * Same coordinates, so dirty checking still sees the geometry as unchanged.
+     */
+    @PostLoad
+    void packGeom() {
+        geom = PackedGeometries.pack(geom);
+    }
+
+    public String getGeomWkt() { return geomWkt; }
+    public String getGeomPolyline() { return geomPolyline; }
+    public Double getBboxMinLng() { return bboxMinLng; }
+    public Double getBboxMinLat() { return bboxMinLat; }
+    public Double getBboxMaxLng() { return bboxMaxLng; }
+    public Double getBboxMaxLat() { return bboxMaxLat; }
+    public Double getStartLng() { return startLng; }
+    public Double getStartLat() { return startLat; }
+    public Double getEndLng() { return endLng; }
+    public Double getEndLat() { return endLat; }
+    public Integer getVertexCount() { return vertexCount; }
+
+    public Integer getAscentMeters() { return ascentMeters; }
+    public void setAscentMeters(Integer ascentMeters) { this.ascentMeters = ascentMeters; }
+
+    public Integer getDescentMeters() { return descentMeters; }
+    public void setDescentMeters(Integer descentMeters) { this.descentMeters = descentMeters; }
+
+    public byte[] getElevationProfile() { return elevationProfile; }
+    public void setElevationProfile(byte[] elevationProfile) { this.elevationProfile = elevationProfile; }
+
+    public Long getVersion() { return version; }
+
+    public RouteStatus getStatus() { return status == null ? RouteStatus.READY : status; }
+    public void setStatus(RouteStatus status) { this.status = status; }
+
+    public String getProcessingError() { return processingError; }
+    public void setProcessingError(String processingError) { this.processingError = processingError; }
+
+    public String getPendingGeomWkt() { return pendingGeomWkt; }
+    public void setPendingGeomWkt(String pendingGeomWkt) { this.pendingGeomWkt = pendingGeomWkt; }
 }
@@ -0,0 +1,67 @@
+// src/main/java/com/orienteering/domain/RouteChange.java
+package com.orienteering.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only log of route writes for client sync (see RouteChangeFeed). Rows are
+ * written in the same transaction as the change; tx_id is filled by the database.
+ */
+@Entity
+@Table(name = "route_changes")
+public class RouteChange {
+
+    public enum Op { CREATED, UPDATED, DELETED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "seq")
+    private Long seq;
+
+    // Writing transaction; orders the feed together with seq
+    @Column(name = "tx_id", columnDefinition = "bigint not null default txid_current()",
+            insertable = false, updatable = false)
+    private Long txId;
+
+    @Column(name = "route_id", nullable = false)
+    private Long routeId;
+
+    @Column(name = "owner_username", nullable = false)
+    private String ownerUsername;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "op", nullable = false, length = 8)
+    private Op op;
+
+    // Visibility before / after, so viewers who lost access get a tombstone
+    @Column(name = "was_public", nullable = false)
+    private boolean wasPublic;
+
+    @Column(name = "is_public", nullable = false)
+    private boolean isPublic;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public RouteChange() {}
+
+    public RouteChange(Long routeId, String ownerUsername, Op op, boolean wasPublic, boolean isPublic, LocalDateTime changedAt) {
+        this.routeId = routeId;
+        this.ownerUsername = ownerUsername;
+        this.op = op;
+        this.wasPublic = wasPublic;
+        this.isPublic = isPublic;
+        this.changedAt = changedAt;
+    }
+
+    public Long getSeq() { return seq; }
+    public Long getTxId() { return txId; }
+    public Long getRouteId() { return routeId; }
+    public String getOwnerUsername() { return ownerUsername; }
+    public Op getOp() { return op; }
+    public boolean isWasPublic() { return wasPublic; }
+    public boolean isPublic() { return isPublic; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+}
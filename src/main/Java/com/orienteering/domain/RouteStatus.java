@@ -0,0 +1,9 @@
+// src/main/java/com/orienteering/domain/RouteStatus.java
+package com.orienteering.domain;
+
+/** Lifecycle of a route's geometry (large uploads are processed in the background) */
+public enum RouteStatus {
+    READY,
+    PROCESSING,
+    FAILED
+}
@@ -0,0 +1,54 @@
+package com.orienteering.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Views of a public route per time bucket, written only by the batched upsert in
+ * RouteViewCommands (see TrendingService); read back to rank trending routes.
+ */
+@Entity
+@Table(name = "route_view_buckets")
+@IdClass(RouteViewBucket.Key.class)
+public class RouteViewBucket {
+
+    @Id
+    @Column(name = "route_id")
+    private Long routeId;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "views", nullable = false)
+    private long views;
+
+    public Long getRouteId() { return routeId; }
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public long getViews() { return views; }
+
+    public static class Key implements Serializable {
+        private Long routeId;
+        private LocalDateTime bucketStart;
+
+        public Key() {}
+
+        public Key(Long routeId, LocalDateTime bucketStart) {
+            this.routeId = routeId;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(routeId, k.routeId) && Objects.equals(bucketStart, k.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(routeId, bucketStart);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+// src/main/java/com/orienteering/domain/TrackChunk.java
+package com.orienteering.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * A consecutive slice of a track encoded by {@link com.orienteering.geo.TrackCodec}.
+ * start_ms / end_ms (epoch milliseconds of the first and last point) let a time-window
+ * read fetch and decode only the chunks it overlaps.
+ */
+@Entity
+@Table(name = "track_chunks")
+public class TrackChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "track_id", nullable = false)
+    private Long trackId;
+
+    @Column(name = "seq", nullable = false)
+    private int seq;
+
+    @Column(name = "start_ms", nullable = false)
+    private long startMs;
+
+    @Column(name = "end_ms", nullable = false)
+    private long endMs;
+
+    @Column(name = "point_count", nullable = false)
+    private int pointCount;
+
+    @Column(name = "data", nullable = false, columnDefinition = "bytea")
+    private byte[] data;
+
+    public TrackChunk() {}
+
+    public TrackChunk(Long trackId, int seq, long startMs, long endMs, int pointCount, byte[] data) {
+        this.trackId = trackId;
+        this.seq = seq;
+        this.startMs = startMs;
+        this.endMs = endMs;
+        this.pointCount = pointCount;
+        this.data = data;
+    }
+
+    public Long getId() { return id; }
+    public Long getTrackId() { return trackId; }
+    public int getSeq() { return seq; }
+    public long getStartMs() { return startMs; }
+    public long getEndMs() { return endMs; }
+    public int getPointCount() { return pointCount; }
+    public byte[] getData() { return data; }
+}
@@ -0,0 +1,45 @@
+// src/main/java/com/orienteering/domain/UserRouteStats.java
+package com.orienteering.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-owner route totals, maintained by delta updates in the route write transaction
+ * (see UserRouteStatsService). Keyed by lower-cased owner username.
+ */
+@Entity
+@Table(name = "user_route_stats")
+public class UserRouteStats {
+
+    @Id
+    @Column(name = "owner_username")
+    private String ownerUsername;
+
+    @Column(name = "route_count", nullable = false)
+    private long routeCount;
+
+    @Column(name = "public_count", nullable = false)
+    private long publicCount;
+
+    @Column(name = "total_distance_meters", nullable = false)
+    private long totalDistanceMeters;
+
+    @Column(name = "longest_distance_meters")
+    private Integer longestDistanceMeters;
+
+    @Column(name = "last_created_at")
+    private LocalDateTime lastCreatedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public String getOwnerUsername() { return ownerUsername; }
+    public long getRouteCount() { return routeCount; }
+    public long getPublicCount() { return publicCount; }
+    public long getTotalDistanceMeters() { return totalDistanceMeters; }
+    public Integer getLongestDistanceMeters() { return longestDistanceMeters; }
+    public LocalDateTime getLastCreatedAt() { return lastCreatedAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,30 @@
+package com.orienteering.dto;
+
+/** Area to package for offline use (WGS84 degrees) */
+public class BundleReq {
+    private double minLng;
+    private double minLat;
+    private double maxLng;
+    private double maxLat;
+
+    public BundleReq() {}
+
+    public BundleReq(double minLng, double minLat, double maxLng, double maxLat) {
+        this.minLng = minLng;
+        this.minLat = minLat;
+        this.maxLng = maxLng;
+        this.maxLat = maxLat;
+    }
+
+    public double getMinLng() { return minLng; }
+    public void setMinLng(double minLng) { this.minLng = minLng; }
+
+    public double getMinLat() { return minLat; }
+    public void setMinLat(double minLat) { this.minLat = minLat; }
+
+    public double getMaxLng() { return maxLng; }
+    public void setMaxLng(double maxLng) { this.maxLng = maxLng; }
+
+    public double getMaxLat() { return maxLat; }
+    public void setMaxLat(double maxLat) { this.maxLat = maxLat; }
+}
@@ -0,0 +1,40 @@
+package com.orienteering.dto;
+
+/** Build state of an offline bundle; download once status is READY */
+public class BundleRes {
+    private String id;
+    private String status;       // BUILDING, READY, FAILED
+    private Integer routeCount;
+    private Long sizeBytes;
+    private String downloadUrl;
+    private String error;
+
+    public BundleRes() {}
+
+    public BundleRes(String id, String status, Integer routeCount, Long sizeBytes, String downloadUrl, String error) {
+        this.id = id;
+        this.status = status;
+        this.routeCount = routeCount;
+        this.sizeBytes = sizeBytes;
+        this.downloadUrl = downloadUrl;
+        this.error = error;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getRouteCount() { return routeCount; }
+    public void setRouteCount(Integer routeCount) { this.routeCount = routeCount; }
+
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public String getDownloadUrl() { return downloadUrl; }
+    public void setDownloadUrl(String downloadUrl) { this.downloadUrl = downloadUrl; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,39 @@
+package com.orienteering.dto;
+
+public class ElevationProfileRes {
+    private Long routeId;
+    private Integer ascentMeters;
+    private Integer descentMeters;
+
+    /** Distance along the route (m) of each sample */
+    private float[] distances;
+
+    /** Elevation (m) of each sample; DEM voids are filled from the nearest known value */
+    private float[] elevations;
+
+    public ElevationProfileRes() {}
+
+    public ElevationProfileRes(Long routeId, Integer ascentMeters, Integer descentMeters,
+                               float[] distances, float[] elevations) {
+        this.routeId = routeId;
+        this.ascentMeters = ascentMeters;
+        this.descentMeters = descentMeters;
+        this.distances = distances;
+        this.elevations = elevations;
+    }
+
+    public Long getRouteId() { return routeId; }
+    public void setRouteId(Long routeId) { this.routeId = routeId; }
+
+    public Integer getAscentMeters() { return ascentMeters; }
+    public void setAscentMeters(Integer ascentMeters) { this.ascentMeters = ascentMeters; }
+
+    public Integer getDescentMeters() { return descentMeters; }
+    public void setDescentMeters(Integer descentMeters) { this.descentMeters = descentMeters; }
+
+    public float[] getDistances() { return distances; }
+    public void setDistances(float[] distances) { this.distances = distances; }
+
+    public float[] getElevations() { return elevations; }
+    public void setElevations(float[] elevations) { this.elevations = elevations; }
+}
@@ -0,0 +1,21 @@
+package com.orienteering.dto;
+
+public class LoopRouteRes {
+    private int lengthMeters;
+
+    /** LINESTRING WKT (lon lat), ready to send as RouteCreateReq.geomWkt */
+    private String geomWkt;
+
+    public LoopRouteRes() {}
+
+    public LoopRouteRes(int lengthMeters, String geomWkt) {
+        this.lengthMeters = lengthMeters;
+        this.geomWkt = geomWkt;
+    }
+
+    public int getLengthMeters() { return lengthMeters; }
+    public void setLengthMeters(int lengthMeters) { this.lengthMeters = lengthMeters; }
+
+    public String getGeomWkt() { return geomWkt; }
+    public void setGeomWkt(String geomWkt) { this.geomWkt = geomWkt; }
+}
@@ -0,0 +1,48 @@
+package com.orienteering.dto;
+
+/** A public route near the requested point */
+public class NearbyRouteRes {
+    private Long id;
+    private String name;
+    private String ownerUsername;
+    private Integer distanceMeters;
+    private Double startLng;
+    private Double startLat;
+
+    /** Geodesic distance from the requested point to the closest part of the route */
+    private double metersAway;
+
+    public NearbyRouteRes() {}
+
+    public NearbyRouteRes(Long id, String name, String ownerUsername, Integer distanceMeters,
+                          Double startLng, Double startLat, double metersAway) {
+        this.id = id;
+        this.name = name;
+        this.ownerUsername = ownerUsername;
+        this.distanceMeters = distanceMeters;
+        this.startLng = startLng;
+        this.startLat = startLat;
+        this.metersAway = metersAway;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getOwnerUsername() { return ownerUsername; }
+    public void setOwnerUsername(String ownerUsername) { this.ownerUsername = ownerUsername; }
+
+    public Integer getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(Integer distanceMeters) { this.distanceMeters = distanceMeters; }
+
+    public Double getStartLng() { return startLng; }
+    public void setStartLng(Double startLng) { this.startLng = startLng; }
+
+    public Double getStartLat() { return startLat; }
+    public void setStartLat(Double startLat) { this.startLat = startLat; }
+
+    public double getMetersAway() { return metersAway; }
+    public void setMetersAway(double metersAway) { this.metersAway = metersAway; }
+}
@@ -0,0 +1,27 @@
+package com.orienteering.dto;
+
+import java.util.List;
+
+/** Routes closest first; pass nextCursor as after for the next page while hasMore */
+public class NearbyRoutesRes {
+    private List<NearbyRouteRes> routes;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public NearbyRoutesRes() {}
+
+    public NearbyRoutesRes(List<NearbyRouteRes> routes, String nextCursor, boolean hasMore) {
+        this.routes = routes;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<NearbyRouteRes> getRoutes() { return routes; }
+    public void setRoutes(List<NearbyRouteRes> routes) { this.routes = routes; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,29 @@
+// src/main/java/com/orienteering/dto/RouteBatchReq.java
+package com.orienteering.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/** Ids to fetch in one go (e.g. everything on the "my routes" map) */
+public class RouteBatchReq {
+
+    @NotNull
+    private List<Long> ids;
+
+    /** Include WKT where the viewer may see it */
+    private boolean includeGeom;
+
+    public RouteBatchReq() {}
+
+    public RouteBatchReq(List<Long> ids, boolean includeGeom) {
+        this.ids = ids;
+        this.includeGeom = includeGeom;
+    }
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+
+    public boolean isIncludeGeom() { return includeGeom; }
+    public void setIncludeGeom(boolean includeGeom) { this.includeGeom = includeGeom; }
+}
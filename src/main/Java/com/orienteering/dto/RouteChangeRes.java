@@ -0,0 +1,30 @@
+package com.orienteering.dto;
+
+/** One feed entry; route is null for DELETED (a tombstone: drop it locally) */
+public class RouteChangeRes {
+    private String cursor;
+    private String op;
+    private Long routeId;
+    private RouteRes route;
+
+    public RouteChangeRes() {}
+
+    public RouteChangeRes(String cursor, String op, Long routeId, RouteRes route) {
+        this.cursor = cursor;
+        this.op = op;
+        this.routeId = routeId;
+        this.route = route;
+    }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public String getOp() { return op; }
+    public void setOp(String op) { this.op = op; }
+
+    public Long getRouteId() { return routeId; }
+    public void setRouteId(Long routeId) { this.routeId = routeId; }
+
+    public RouteRes getRoute() { return route; }
+    public void setRoute(RouteRes route) { this.route = route; }
+}
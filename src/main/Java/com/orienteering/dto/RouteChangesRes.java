@@ -0,0 +1,27 @@
+package com.orienteering.dto;
+
+import java.util.List;
+
+/** A page of the change feed; pass nextCursor as since, and call again while hasMore */
+public class RouteChangesRes {
+    private List<RouteChangeRes> changes;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public RouteChangesRes() {}
+
+    public RouteChangesRes(List<RouteChangeRes> changes, String nextCursor, boolean hasMore) {
+        this.changes = changes;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<RouteChangeRes> getChanges() { return changes; }
+    public void setChanges(List<RouteChangeRes> changes) { this.changes = changes; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,30 @@
+package com.orienteering.dto;
+
+/** A cluster of route start points; routeId is set when it holds a single route */
+public class RouteClusterRes {
+    private double lng;
+    private double lat;
+    private int count;
+    private Long routeId;
+
+    public RouteClusterRes() {}
+
+    public RouteClusterRes(double lng, double lat, int count, Long routeId) {
+        this.lng = lng;
+        this.lat = lat;
+        this.count = count;
+        this.routeId = routeId;
+    }
+
+    public double getLng() { return lng; }
+    public void setLng(double lng) { this.lng = lng; }
+
+    public double getLat() { return lat; }
+    public void setLat(double lat) { this.lat = lat; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public Long getRouteId() { return routeId; }
+    public void setRouteId(Long routeId) { this.routeId = routeId; }
+}
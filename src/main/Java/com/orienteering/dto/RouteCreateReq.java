@@ -22,6 +22,9 @@ public class RouteCreateReq {
     @NotBlank(message = "geomWkt is required")
     private String geomWkt;
 
+    // Skip the near-duplicate check (e.g. an intentional variant of an existing course)
+    private boolean allowDuplicate;
+
     // ----- constructors -----
     public RouteCreateReq() {}
 
@@ -65,4 +68,12 @@ public class RouteCreateReq {
     public void setGeomWkt(String geomWkt) {
         this.geomWkt = geomWkt;
     }
+
+    public boolean isAllowDuplicate() {
+        return allowDuplicate;
+    }
+
+    public void setAllowDuplicate(boolean allowDuplicate) {
+        this.allowDuplicate = allowDuplicate;
+    }
 }
@@ -0,0 +1,74 @@
+package com.orienteering.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Vertex-range edits against the geometry at a known version. Ops apply in order,
+ * each one against the result of the previous ones; indices are vertex positions.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RouteGeomPatchReq {
+
+    /** The version the edits were made against (RouteRes.version); 409 if it moved on */
+    @NotNull(message = "version is required")
+    private Long version;
+
+    @NotEmpty(message = "ops are required")
+    @Valid
+    private List<Op> ops;
+
+    public RouteGeomPatchReq() {}
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public List<Op> getOps() { return ops; }
+    public void setOps(List<Op> ops) { this.ops = ops; }
+
+    /**
+     * insert: coords go before vertex {@code from} (from == vertex count appends).
+     * replace: vertices [from, to) are replaced by coords (any number of them).
+     * delete: vertices [from, to) are removed.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Op {
+
+        @NotNull(message = "op is required")
+        private String op;
+
+        @NotNull(message = "from is required")
+        private Integer from;
+
+        /** Exclusive end for replace/delete */
+        private Integer to;
+
+        /** [lng, lat] pairs, as in WKT */
+        private List<double[]> coords;
+
+        public Op() {}
+
+        public Op(String op, Integer from, Integer to, List<double[]> coords) {
+            this.op = op;
+            this.from = from;
+            this.to = to;
+            this.coords = coords;
+        }
+
+        public String getOp() { return op; }
+        public void setOp(String op) { this.op = op; }
+
+        public Integer getFrom() { return from; }
+        public void setFrom(Integer from) { this.from = from; }
+
+        public Integer getTo() { return to; }
+        public void setTo(Integer to) { this.to = to; }
+
+        public List<double[]> getCoords() { return coords; }
+        public void setCoords(List<double[]> coords) { this.coords = coords; }
+    }
+}
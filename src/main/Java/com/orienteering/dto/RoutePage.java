@@ -0,0 +1,44 @@
+package com.orienteering.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/** One page of routes: the fields clients read from Spring's Page, without pageable/sort metadata */
+public class RoutePage {
+    private List<RouteRes> content;
+    private int number;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+
+    public RoutePage() {}
+
+    public RoutePage(List<RouteRes> content, int number, int size, long totalElements, int totalPages) {
+        this.content = content;
+        this.number = number;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.totalPages = totalPages;
+    }
+
+    public static RoutePage of(Page<RouteRes> page) {
+        return new RoutePage(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+
+    public List<RouteRes> getContent() { return content; }
+    public void setContent(List<RouteRes> content) { this.content = content; }
+
+    public int getNumber() { return number; }
+    public void setNumber(int number) { this.number = number; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public long getTotalElements() { return totalElements; }
+    public void setTotalElements(long totalElements) { this.totalElements = totalElements; }
+
+    public int getTotalPages() { return totalPages; }
+    public void setTotalPages(int totalPages) { this.totalPages = totalPages; }
+}
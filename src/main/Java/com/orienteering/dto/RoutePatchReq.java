@@ -0,0 +1,33 @@
+// src/main/java/com/orienteering/dto/RoutePatchReq.java
+package com.orienteering.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+
+/** Partial update of route metadata; absent fields are left unchanged */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RoutePatchReq {
+
+    /** The version the client last saw (RouteRes.version); 409 if it moved on */
+    @NotNull
+    private Long version;
+
+    private String name;
+    private Integer distanceMeters;
+
+    @JsonProperty("public")
+    private Boolean isPublic;
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Integer getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(Integer distanceMeters) { this.distanceMeters = distanceMeters; }
+
+    public Boolean getPublic() { return isPublic; }
+    public void setPublic(Boolean aPublic) { isPublic = aPublic; }
+}
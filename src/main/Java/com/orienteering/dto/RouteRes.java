@@ -10,9 +10,24 @@ public class RouteRes {
     private boolean isPublic;
     private Instant createdAt;
 
+    /** Total climb / descent from the DEM (null when no elevation data) */
+    private Integer ascentMeters;
+    private Integer descentMeters;
+
     /** WKT of the geometry (may be null if viewer not allowed or route has no geom) */
     private String geomWkt;
 
+    /** [minLng, minLat, maxLng, maxLat] and point count (null when the route has no geom) */
+    private double[] bbox;
+    private Integer vertexCount;
+
+    /** Send back with PATCH; changes on every write */
+    private Long version;
+
+    /** READY, or PROCESSING / FAILED for large uploads (poll details until READY) */
+    private String status;
+    private String processingError;
+
     /** Owner's username/email (useful for debugging/UI, optional to show) */
     private String ownerUsername;
 
@@ -38,9 +53,30 @@ public class RouteRes {
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 
+    public Integer getAscentMeters() { return ascentMeters; }
+    public void setAscentMeters(Integer ascentMeters) { this.ascentMeters = ascentMeters; }
+
+    public Integer getDescentMeters() { return descentMeters; }
+    public void setDescentMeters(Integer descentMeters) { this.descentMeters = descentMeters; }
+
     public String getGeomWkt() { return geomWkt; }
     public void setGeomWkt(String geomWkt) { this.geomWkt = geomWkt; }
 
+    public double[] getBbox() { return bbox; }
+    public void setBbox(double[] bbox) { this.bbox = bbox; }
+
+    public Integer getVertexCount() { return vertexCount; }
+    public void setVertexCount(Integer vertexCount) { this.vertexCount = vertexCount; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getProcessingError() { return processingError; }
+    public void setProcessingError(String processingError) { this.processingError = processingError; }
+
     public String getOwnerUsername() { return ownerUsername; }
     public void setOwnerUsername(String ownerUsername) { this.ownerUsername = ownerUsername; }
 
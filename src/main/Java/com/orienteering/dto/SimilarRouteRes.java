@@ -0,0 +1,36 @@
+package com.orienteering.dto;
+
+public class SimilarRouteRes {
+    private Long id;
+    private String name;
+    private Integer distanceMeters;
+    private boolean isPublic;
+
+    /** Discrete Fréchet distance to the reference route, in meters (simplified geometries) */
+    private double frechetMeters;
+
+    public SimilarRouteRes() {}
+
+    public SimilarRouteRes(Long id, String name, Integer distanceMeters, boolean isPublic, double frechetMeters) {
+        this.id = id;
+        this.name = name;
+        this.distanceMeters = distanceMeters;
+        this.isPublic = isPublic;
+        this.frechetMeters = frechetMeters;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Integer getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(Integer distanceMeters) { this.distanceMeters = distanceMeters; }
+
+    public boolean isPublic() { return isPublic; }
+    public void setPublic(boolean aPublic) { isPublic = aPublic; }
+
+    public double getFrechetMeters() { return frechetMeters; }
+    public void setFrechetMeters(double frechetMeters) { this.frechetMeters = frechetMeters; }
+}
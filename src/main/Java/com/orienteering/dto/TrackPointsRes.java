@@ -0,0 +1,22 @@
+package com.orienteering.dto;
+
+import java.util.List;
+
+/** Points of a track in a time window: [epochMillis, lat, lng] plus elevation when recorded */
+public class TrackPointsRes {
+    private Long trackId;
+    private List<double[]> points;
+
+    public TrackPointsRes() {}
+
+    public TrackPointsRes(Long trackId, List<double[]> points) {
+        this.trackId = trackId;
+        this.points = points;
+    }
+
+    public Long getTrackId() { return trackId; }
+    public void setTrackId(Long trackId) { this.trackId = trackId; }
+
+    public List<double[]> getPoints() { return points; }
+    public void setPoints(List<double[]> points) { this.points = points; }
+}
@@ -0,0 +1,63 @@
+package com.orienteering.dto;
+
+import java.time.Instant;
+
+/** Track summary; storedBytes is the encoded size of its points */
+public class TrackRes {
+    private Long id;
+    private Long routeId;
+    private String ownerUsername;
+    private String name;
+    private boolean isPublic;
+    private Instant startedAt;
+    private Instant endedAt;
+    private int pointCount;
+    private int distanceMeters;
+    private long storedBytes;
+
+    public TrackRes() {}
+
+    public TrackRes(Long id, Long routeId, String ownerUsername, String name, boolean isPublic,
+                    Instant startedAt, Instant endedAt, int pointCount, int distanceMeters, long storedBytes) {
+        this.id = id;
+        this.routeId = routeId;
+        this.ownerUsername = ownerUsername;
+        this.name = name;
+        this.isPublic = isPublic;
+        this.startedAt = startedAt;
+        this.endedAt = endedAt;
+        this.pointCount = pointCount;
+        this.distanceMeters = distanceMeters;
+        this.storedBytes = storedBytes;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getRouteId() { return routeId; }
+    public void setRouteId(Long routeId) { this.routeId = routeId; }
+
+    public String getOwnerUsername() { return ownerUsername; }
+    public void setOwnerUsername(String ownerUsername) { this.ownerUsername = ownerUsername; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public boolean isPublic() { return isPublic; }
+    public void setPublic(boolean aPublic) { isPublic = aPublic; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getEndedAt() { return endedAt; }
+    public void setEndedAt(Instant endedAt) { this.endedAt = endedAt; }
+
+    public int getPointCount() { return pointCount; }
+    public void setPointCount(int pointCount) { this.pointCount = pointCount; }
+
+    public int getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(int distanceMeters) { this.distanceMeters = distanceMeters; }
+
+    public long getStoredBytes() { return storedBytes; }
+    public void setStoredBytes(long storedBytes) { this.storedBytes = storedBytes; }
+}
@@ -0,0 +1,38 @@
+package com.orienteering.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TrackUploadReq {
+
+    @NotNull(message = "routeId is required")
+    private Long routeId;
+
+    private String name;
+
+    @JsonProperty("public")
+    private boolean isPublic;
+
+    /** [epochMillis, lat, lng] or [epochMillis, lat, lng, elevationMeters], in time order */
+    @NotEmpty(message = "points are required")
+    private List<double[]> points;
+
+    public TrackUploadReq() {}
+
+    public Long getRouteId() { return routeId; }
+    public void setRouteId(Long routeId) { this.routeId = routeId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public boolean isPublic() { return isPublic; }
+    public void setPublic(boolean aPublic) { isPublic = aPublic; }
+
+    public List<double[]> getPoints() { return points; }
+    public void setPoints(List<double[]> points) { this.points = points; }
+}
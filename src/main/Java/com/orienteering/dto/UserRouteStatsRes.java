@@ -0,0 +1,43 @@
+package com.orienteering.dto;
+
+import java.time.Instant;
+
+/** Route totals for one user; fields covering private routes are null unless the viewer is that user */
+public class UserRouteStatsRes {
+    private String username;
+    private Long routeCount;
+    private Long publicCount;
+    private Long totalDistanceMeters;
+    private Integer longestDistanceMeters;
+    private Instant lastCreatedAt;
+
+    public UserRouteStatsRes() {}
+
+    public UserRouteStatsRes(String username, Long routeCount, Long publicCount, Long totalDistanceMeters,
+                             Integer longestDistanceMeters, Instant lastCreatedAt) {
+        this.username = username;
+        this.routeCount = routeCount;
+        this.publicCount = publicCount;
+        this.totalDistanceMeters = totalDistanceMeters;
+        this.longestDistanceMeters = longestDistanceMeters;
+        this.lastCreatedAt = lastCreatedAt;
+    }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public Long getRouteCount() { return routeCount; }
+    public void setRouteCount(Long routeCount) { this.routeCount = routeCount; }
+
+    public Long getPublicCount() { return publicCount; }
+    public void setPublicCount(Long publicCount) { this.publicCount = publicCount; }
+
+    public Long getTotalDistanceMeters() { return totalDistanceMeters; }
+    public void setTotalDistanceMeters(Long totalDistanceMeters) { this.totalDistanceMeters = totalDistanceMeters; }
+
+    public Integer getLongestDistanceMeters() { return longestDistanceMeters; }
+    public void setLongestDistanceMeters(Integer longestDistanceMeters) { this.longestDistanceMeters = longestDistanceMeters; }
+
+    public Instant getLastCreatedAt() { return lastCreatedAt; }
+    public void setLastCreatedAt(Instant lastCreatedAt) { this.lastCreatedAt = lastCreatedAt; }
+}
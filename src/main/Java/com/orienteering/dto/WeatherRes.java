@@ -0,0 +1,53 @@
+package com.orienteering.dto;
+
+import java.time.Instant;
+
+public class WeatherRes {
+    private double temperature;
+    private double windspeed;
+    private int weathercode;
+
+    /** Geohash cell the observation was fetched for */
+    private String geohash;
+
+    /** When the backend fetched it from upstream */
+    private Instant fetchedAt;
+
+    /** True when upstream is failing and an older cached value is served */
+    private boolean stale;
+
+    public WeatherRes() {}
+
+    public WeatherRes(double temperature, double windspeed, int weathercode) {
+        this.temperature = temperature;
+        this.windspeed = windspeed;
+        this.weathercode = weathercode;
+    }
+
+    /** Copy tagged with cache metadata; cached instances are never mutated. */
+    public WeatherRes withMeta(String geohash, Instant fetchedAt, boolean stale) {
+        WeatherRes w = new WeatherRes(temperature, windspeed, weathercode);
+        w.geohash = geohash;
+        w.fetchedAt = fetchedAt;
+        w.stale = stale;
+        return w;
+    }
+
+    public double getTemperature() { return temperature; }
+    public void setTemperature(double temperature) { this.temperature = temperature; }
+
+    public double getWindspeed() { return windspeed; }
+    public void setWindspeed(double windspeed) { this.windspeed = windspeed; }
+
+    public int getWeathercode() { return weathercode; }
+    public void setWeathercode(int weathercode) { this.weathercode = weathercode; }
+
+    public String getGeohash() { return geohash; }
+    public void setGeohash(String geohash) { this.geohash = geohash; }
+
+    public Instant getFetchedAt() { return fetchedAt; }
+    public void setFetchedAt(Instant fetchedAt) { this.fetchedAt = fetchedAt; }
+
+    public boolean isStale() { return stale; }
+    public void setStale(boolean stale) { this.stale = stale; }
+}
@@ -0,0 +1,139 @@
+package com.orienteering.geo;
+
+/**
+ * One zoom level of the route-start cluster index: the occupied cells of a regular
+ * Web Mercator grid, held in open-addressing primitive arrays. Each cell keeps a
+ * count, coordinate sums (for the centroid) and the XOR of its route ids, which is
+ * the remaining id whenever the count drops back to one. Not thread-safe.
+ */
+public final class ClusterGrid {
+
+    public interface CellVisitor {
+        /** singleRouteId is only meaningful when count == 1 */
+        void visit(int count, double meanX, double meanY, long singleRouteId);
+    }
+
+    private final int cellsPerAxis;
+    private long[] keys;      // cell key + 1; 0 marks a free slot
+    private int[] counts;
+    private double[] sumX;
+    private double[] sumY;
+    private long[] idXor;
+    private int used;         // slots holding a key (including emptied cells)
+    private int occupied;     // cells with count > 0
+
+    public ClusterGrid(int cellsPerAxis) {
+        this.cellsPerAxis = cellsPerAxis;
+        allocate(64);
+    }
+
+    public int cellsPerAxis() { return cellsPerAxis; }
+
+    public int occupied() { return occupied; }
+
+    /** Cell index along one axis for a Mercator coordinate in [0, 1]. */
+    public int cell(double v) {
+        return (int) Math.max(0, Math.min(cellsPerAxis - 1, Math.floor(v * cellsPerAxis)));
+    }
+
+    /** Adds (delta = 1) or removes (delta = -1) a point given in Mercator [0, 1] units. */
+    public void update(double x, double y, long routeId, int delta) {
+        long key = (long) cell(x) * cellsPerAxis + cell(y);
+        int slot = find(key);
+        if (keys[slot] == 0) {
+            if (delta <= 0) return; // removing something that was never added
+            if ((used + 1) * 10 > keys.length * 6) {
+                rehash(keys.length * 2);
+                slot = find(key);
+            }
+            keys[slot] = key + 1;
+            used++;
+        }
+        int before = counts[slot];
+        int after = before + delta;
+        if (after < 0) return;
+        counts[slot] = after;
+        if (after == 0) {
+            // Reset instead of accumulating rounding error in empty cells
+            sumX[slot] = sumY[slot] = 0;
+            idXor[slot] = 0;
+            occupied--;
+            if (used > 64 && occupied * 4 < used) rehash(occupied * 4);
+            return;
+        }
+        if (before == 0) occupied++;
+        sumX[slot] += delta * x;
+        sumY[slot] += delta * y;
+        idXor[slot] ^= routeId;
+    }
+
+    /** Visits the occupied cells within the inclusive cell range. */
+    public void forEachIn(int x0, int y0, int x1, int y1, CellVisitor visitor) {
+        long area = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+        if (area <= occupied) {
+            // Small window: look each cell up
+            for (int cx = x0; cx <= x1; cx++) {
+                for (int cy = y0; cy <= y1; cy++) {
+                    int slot = find((long) cx * cellsPerAxis + cy);
+                    if (keys[slot] != 0 && counts[slot] > 0) emit(slot, visitor);
+                }
+            }
+            return;
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == 0 || counts[slot] == 0) continue;
+            long key = keys[slot] - 1;
+            int cx = (int) (key / cellsPerAxis), cy = (int) (key % cellsPerAxis);
+            if (cx >= x0 && cx <= x1 && cy >= y0 && cy <= y1) emit(slot, visitor);
+        }
+    }
+
+    private void emit(int slot, CellVisitor visitor) {
+        int c = counts[slot];
+        visitor.visit(c, sumX[slot] / c, sumY[slot] / c, idXor[slot]);
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key + 1) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        sumX = new double[capacity];
+        sumY = new double[capacity];
+        idXor = new long[capacity];
+        used = 0;
+    }
+
+    /** Rebuilds the table with at least minCapacity slots, dropping emptied cells. */
+    private void rehash(int minCapacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        double[] oldX = sumX, oldY = sumY;
+        long[] oldIds = idXor;
+        int capacity = 64;
+        while (capacity < minCapacity || capacity < occupied * 2) capacity <<= 1;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0 || oldCounts[i] == 0) continue;
+            int slot = find(oldKeys[i] - 1);
+            keys[slot] = oldKeys[i];
+            counts[slot] = oldCounts[i];
+            sumX[slot] = oldX[i];
+            sumY[slot] = oldY[i];
+            idXor[slot] = oldIds[i];
+            used++;
+        }
+    }
+}
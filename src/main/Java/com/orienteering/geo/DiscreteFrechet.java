@@ -0,0 +1,55 @@
+package com.orienteering.geo;
+
+/**
+ * Discrete Fréchet distance over projected (meter) coordinates, computed row by row
+ * in O(m) memory. Every coupling passes through every row, so once a whole row
+ * exceeds the bound the result cannot come back under it and we stop early. An
+ * interrupt (a cancelled scoring task) is checked once per row and abandons too.
+ */
+public final class DiscreteFrechet {
+
+    public static final double ABANDONED = Double.POSITIVE_INFINITY;
+
+    private DiscreteFrechet() {}
+
+    /**
+     * @return the distance, or {@link #ABANDONED} when it is known to exceed {@code bound}
+     *         or the thread was interrupted
+     */
+    public static double distance(double[] ax, double[] ay, double[] bx, double[] by, double bound) {
+        int n = ax.length, m = bx.length;
+        if (n == 0 || m == 0) return ABANDONED;
+        double bound2 = bound * bound;
+
+        double[] prev = new double[m];
+        double[] cur = new double[m];
+
+        prev[0] = d2(ax[0], ay[0], bx[0], by[0]);
+        if (prev[0] > bound2) return ABANDONED;
+        for (int j = 1; j < m; j++) {
+            prev[j] = Math.max(prev[j - 1], d2(ax[0], ay[0], bx[j], by[j]));
+        }
+
+        for (int i = 1; i < n; i++) {
+            if (Thread.currentThread().isInterrupted()) return ABANDONED;
+            cur[0] = Math.max(prev[0], d2(ax[i], ay[i], bx[0], by[0]));
+            double rowMin = cur[0];
+            for (int j = 1; j < m; j++) {
+                double best = Math.min(prev[j], Math.min(prev[j - 1], cur[j - 1]));
+                double v = Math.max(best, d2(ax[i], ay[i], bx[j], by[j]));
+                cur[j] = v;
+                if (v < rowMin) rowMin = v;
+            }
+            if (rowMin > bound2) return ABANDONED;
+            double[] t = prev; prev = cur; cur = t;
+        }
+
+        double result = prev[m - 1];
+        return result > bound2 ? ABANDONED : Math.sqrt(result);
+    }
+
+    private static double d2(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2, dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
+}
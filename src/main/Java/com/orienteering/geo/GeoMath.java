@@ -0,0 +1,58 @@
+package com.orienteering.geo;
+
+/** Small spherical-earth helpers shared by the geometry services. */
+public final class GeoMath {
+
+    public static final double EARTH_RADIUS_M = 6_371_000.0;
+    public static final double METERS_PER_DEGREE = 111_320.0;
+    /** Web Mercator latitude limit */
+    public static final double MAX_MERCATOR_LAT = 85.05112878;
+
+    private GeoMath() {}
+
+    /** Great-circle distance in meters. */
+    public static double haversine(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double s1 = Math.sin(dLat / 2), s2 = Math.sin(dLng / 2);
+        double a = s1 * s1 + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * s2 * s2;
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /** Degrees of latitude/longitude that cover at least {@code meters} around {@code lat}. */
+    public static double metersToDegrees(double meters, double lat) {
+        double cos = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        return meters / (METERS_PER_DEGREE * cos);
+    }
+
+    /** Meters east of the reference meridian in a local equirectangular projection. */
+    public static double projectX(double lng, double refLng, double refLat) {
+        return (lng - refLng) * METERS_PER_DEGREE * Math.cos(Math.toRadians(refLat));
+    }
+
+    /** Meters north of the reference parallel in a local equirectangular projection. */
+    public static double projectY(double lat, double refLat) {
+        return (lat - refLat) * METERS_PER_DEGREE;
+    }
+
+    /** Web Mercator x in [0, 1] (west to east). */
+    public static double mercatorX(double lng) {
+        return (lng + 180) / 360;
+    }
+
+    /** Web Mercator y in [0, 1] (north to south), latitude clamped to the Mercator limit. */
+    public static double mercatorY(double lat) {
+        double r = Math.toRadians(Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, lat)));
+        return (1 - Math.log(Math.tan(r) + 1 / Math.cos(r)) / Math.PI) / 2;
+    }
+
+    /** Inverse of {@link #mercatorX}. */
+    public static double mercatorLng(double x) {
+        return x * 360 - 180;
+    }
+
+    /** Inverse of {@link #mercatorY}. */
+    public static double mercatorLat(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+}
@@ -0,0 +1,58 @@
+package com.orienteering.geo;
+
+/** Standard base-32 geohash encoding/decoding. */
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {}
+
+    public static String encode(double lat, double lng, int precision) {
+        double latMin = -90, latMax = 90, lngMin = -180, lngMax = 180;
+        StringBuilder sb = new StringBuilder(precision);
+        boolean even = true;
+        int bit = 0, ch = 0;
+        while (sb.length() < precision) {
+            if (even) {
+                double mid = (lngMin + lngMax) / 2;
+                if (lng >= mid) { ch |= 1 << (4 - bit); lngMin = mid; } else { lngMax = mid; }
+            } else {
+                double mid = (latMin + latMax) / 2;
+                if (lat >= mid) { ch |= 1 << (4 - bit); latMin = mid; } else { latMax = mid; }
+            }
+            even = !even;
+            if (++bit == 5) {
+                sb.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Centre of the cell as {lat, lng}. */
+    public static double[] center(String hash) {
+        double latMin = -90, latMax = 90, lngMin = -180, lngMax = 180;
+        boolean even = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int cd = indexOf(hash.charAt(i));
+            for (int mask = 16; mask > 0; mask >>= 1) {
+                boolean on = (cd & mask) != 0;
+                if (even) {
+                    double mid = (lngMin + lngMax) / 2;
+                    if (on) lngMin = mid; else lngMax = mid;
+                } else {
+                    double mid = (latMin + latMax) / 2;
+                    if (on) latMin = mid; else latMax = mid;
+                }
+                even = !even;
+            }
+        }
+        return new double[]{(latMin + latMax) / 2, (lngMin + lngMax) / 2};
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < BASE32.length; i++) if (BASE32[i] == c) return i;
+        throw new IllegalArgumentException("Invalid geohash character: " + c);
+    }
+}
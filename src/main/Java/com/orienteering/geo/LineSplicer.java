@@ -0,0 +1,132 @@
+package com.orienteering.geo;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+
+import java.util.Arrays;
+
+/**
+ * Applies vertex-range splices to a line held as packed x,y pairs and keeps its
+ * derived data current as it goes: the length changes by the segments around each
+ * splice only, and the envelope only grows, unless a removed vertex was on its
+ * boundary (then it is rescanned once, in {@link #envelope}).
+ * <pre>
+ * LineSplicer s = new LineSplicer(route.getGeom(), route.getGeom().getEnvelopeInternal());
+ * s.splice(120, 122, new double[]{lng, lat}, 1);   // two vertices become one
+ * route.setGeom(s.toLineString(factory), s.envelope());
+ * </pre>
+ */
+public final class LineSplicer {
+
+    private double[] xy;
+    private int n;
+    private double lengthDelta;
+
+    private double minX, minY, maxX, maxY;
+    private boolean envelopeStale;
+
+    public LineSplicer(LineString line, Envelope envelope) {
+        CoordinateSequence cs = line.getCoordinateSequence();
+        n = cs.size();
+        xy = new double[n * 2 + 64];
+        for (int i = 0; i < n; i++) {
+            xy[2 * i] = cs.getX(i);
+            xy[2 * i + 1] = cs.getY(i);
+        }
+        minX = envelope.getMinX();
+        minY = envelope.getMinY();
+        maxX = envelope.getMaxX();
+        maxY = envelope.getMaxY();
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /** Change in great-circle length (meters) over all splices so far. */
+    public double lengthDelta() {
+        return lengthDelta;
+    }
+
+    /**
+     * Replaces vertices [from, to) with the first {@code m} x,y pairs of {@code ins};
+     * from == to inserts, m == 0 deletes. IllegalArgumentException for a bad range.
+     */
+    public void splice(int from, int to, double[] ins, int m) {
+        if (from < 0 || to < from || to > n) {
+            throw new IllegalArgumentException("Vertex range [" + from + ", " + to + ") is outside 0.." + n);
+        }
+
+        // Segments that touch the removed range, or the gap the insert opens
+        for (int k = Math.max(from - 1, 0); k < Math.min(to, n - 1); k++) {
+            lengthDelta -= segment(xy, k, xy, k + 1);
+        }
+        int prev = from - 1, next = to < n ? to : -1;
+        if (m > 0) {
+            if (prev >= 0) lengthDelta += segment(xy, prev, ins, 0);
+            for (int i = 1; i < m; i++) lengthDelta += segment(ins, i - 1, ins, i);
+            if (next >= 0) lengthDelta += segment(ins, m - 1, xy, next);
+        } else if (prev >= 0 && next >= 0) {
+            lengthDelta += segment(xy, prev, xy, next);
+        }
+
+        for (int i = from; i < to && !envelopeStale; i++) {
+            double x = xy[2 * i], y = xy[2 * i + 1];
+            envelopeStale = x == minX || x == maxX || y == minY || y == maxY;
+        }
+        for (int i = 0; i < m; i++) {
+            double x = ins[2 * i], y = ins[2 * i + 1];
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+        }
+
+        int size = n - (to - from) + m;
+        if (size * 2 > xy.length) xy = Arrays.copyOf(xy, Math.max(size * 2, xy.length + (xy.length >> 1)));
+        System.arraycopy(xy, to * 2, xy, (from + m) * 2, (n - to) * 2);
+        System.arraycopy(ins, 0, xy, from * 2, m * 2);
+        n = size;
+    }
+
+    /** The current envelope; rescans the vertices only if a boundary vertex was removed. */
+    public Envelope envelope() {
+        if (envelopeStale && n > 0) {
+            minX = maxX = xy[0];
+            minY = maxY = xy[1];
+            for (int i = 1; i < n; i++) {
+                double x = xy[2 * i], y = xy[2 * i + 1];
+                if (x < minX) minX = x;
+                if (x > maxX) maxX = x;
+                if (y < minY) minY = y;
+                if (y > maxY) maxY = y;
+            }
+            envelopeStale = false;
+        }
+        return new Envelope(minX, maxX, minY, maxY);
+    }
+
+    /**
+     * The edited line on a packed sequence, with consecutive duplicates (e.g. an insert
+     * next to an identical vertex) dropped; they add nothing to length or envelope.
+     */
+    public LineString toLineString(GeometryFactory factory) {
+        int w = Math.min(n, 1);
+        for (int i = 1; i < n; i++) {
+            double x = xy[2 * i], y = xy[2 * i + 1];
+            if (x == xy[2 * w - 2] && y == xy[2 * w - 1]) continue;
+            xy[2 * w] = x;
+            xy[2 * w + 1] = y;
+            w++;
+        }
+        n = w;
+        // A copy, so later splices cannot reach into the returned line
+        return PackedGeometries.lineString(factory, Arrays.copyOf(xy, n * 2), n);
+    }
+
+    private static double segment(double[] a, int i, double[] b, int j) {
+        return GeoMath.haversine(a[2 * i + 1], a[2 * i], b[2 * j + 1], b[2 * j]);
+    }
+}
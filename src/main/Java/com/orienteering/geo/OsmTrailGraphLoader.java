@@ -0,0 +1,146 @@
+package com.orienteering.geo;
+
+import crosby.binary.osmosis.OsmosisReader;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a {@link TrailGraph} from an OSM PBF extract in two streaming passes:
+ * walkable ways first (collecting node references), then the coordinates of just
+ * those nodes. Node ids are resolved by binary search over a sorted long[],
+ * so the build never holds one object per node.
+ */
+public final class OsmTrailGraphLoader {
+
+    /** highway=* values a runner on foot can use. */
+    private static final Set<String> WALKABLE = Set.of(
+            "path", "footway", "track", "bridleway", "steps", "pedestrian", "cycleway",
+            "living_street", "residential", "unclassified", "service", "tertiary", "road");
+
+    private static final Set<String> NO_ACCESS = Set.of("no", "private");
+
+    private OsmTrailGraphLoader() {}
+
+    public static TrailGraph load(Path pbf) throws IOException {
+        // Pass 1: way node references, way boundaries in wayStart
+        WayCollector ways = new WayCollector();
+        read(pbf, ways);
+
+        long[] refs = Arrays.copyOf(ways.refs, ways.refCount);
+        long[] nodeIds = refs.clone();
+        Arrays.sort(nodeIds);
+        int n = 0;
+        for (int i = 0; i < nodeIds.length; i++) {
+            if (i == 0 || nodeIds[i] != nodeIds[i - 1]) nodeIds[n++] = nodeIds[i];
+        }
+        nodeIds = Arrays.copyOf(nodeIds, n);
+
+        // Pass 2: coordinates of referenced nodes
+        float[] lat = new float[n], lon = new float[n];
+        Arrays.fill(lat, Float.NaN);
+        long[] ids = nodeIds;
+        read(pbf, entity -> {
+            if (entity instanceof Node node) {
+                int idx = Arrays.binarySearch(ids, node.getId());
+                if (idx >= 0) {
+                    lat[idx] = (float) node.getLatitude();
+                    lon[idx] = (float) node.getLongitude();
+                }
+            }
+        });
+
+        // Edges between consecutive way nodes, both directions
+        int[] degree = new int[n + 1];
+        int[] from = new int[ways.refCount], to = new int[ways.refCount];
+        int edges = 0;
+        for (int w = 0; w < ways.wayCount; w++) {
+            int start = ways.wayStart[w], end = w + 1 < ways.wayCount ? ways.wayStart[w + 1] : ways.refCount;
+            for (int k = start + 1; k < end; k++) {
+                int a = Arrays.binarySearch(nodeIds, refs[k - 1]);
+                int b = Arrays.binarySearch(nodeIds, refs[k]);
+                if (a == b || Float.isNaN(lat[a]) || Float.isNaN(lat[b])) continue;
+                from[edges] = a;
+                to[edges] = b;
+                edges++;
+                degree[a]++;
+                degree[b]++;
+            }
+        }
+
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) offsets[i + 1] = offsets[i] + degree[i];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        int[] targets = new int[offsets[n]];
+        float[] lengths = new float[offsets[n]];
+        for (int e = 0; e < edges; e++) {
+            int a = from[e], b = to[e];
+            float d = (float) GeoMath.haversine(lat[a], lon[a], lat[b], lon[b]);
+            targets[cursor[a]] = b; lengths[cursor[a]++] = d;
+            targets[cursor[b]] = a; lengths[cursor[b]++] = d;
+        }
+        return TrailGraph.of(lat, lon, offsets, targets, lengths);
+    }
+
+    private static void read(Path pbf, java.util.function.Consumer<Entity> consumer) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(pbf), 1 << 16)) {
+            OsmosisReader reader = new OsmosisReader(in);
+            reader.setSink(new Sink() {
+                @Override public void initialize(Map<String, Object> metaData) {}
+                @Override public void process(EntityContainer container) { consumer.accept(container.getEntity()); }
+                @Override public void complete() {}
+                @Override public void close() {}
+            });
+            reader.run();
+        }
+    }
+
+    /** Growable primitive buffers for pass 1. */
+    private static final class WayCollector implements java.util.function.Consumer<Entity> {
+        long[] refs = new long[1 << 20];
+        int refCount;
+        int[] wayStart = new int[1 << 16];
+        int wayCount;
+
+        @Override
+        public void accept(Entity entity) {
+            if (!(entity instanceof Way way) || !walkable(way)) return;
+            var nodes = way.getWayNodes();
+            if (nodes.size() < 2) return;
+            if (wayCount == wayStart.length) wayStart = Arrays.copyOf(wayStart, wayCount * 2);
+            wayStart[wayCount++] = refCount;
+            if (refCount + nodes.size() > refs.length) {
+                refs = Arrays.copyOf(refs, Math.max(refs.length * 2, refCount + nodes.size()));
+            }
+            for (WayNode wn : nodes) refs[refCount++] = wn.getNodeId();
+        }
+
+        private static boolean walkable(Way way) {
+            String highway = null, access = null, foot = null;
+            for (Tag t : way.getTags()) {
+                switch (t.getKey()) {
+                    case "highway" -> highway = t.getValue();
+                    case "access" -> access = t.getValue();
+                    case "foot" -> foot = t.getValue();
+                    default -> { }
+                }
+            }
+            if (highway == null || !WALKABLE.contains(highway)) return false;
+            if (foot != null) return !NO_ACCESS.contains(foot);
+            return access == null || !NO_ACCESS.contains(access);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.orienteering.geo;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+
+import java.util.Arrays;
+
+/**
+ * Route geometries backed by a single double[] of x,y pairs instead of one Coordinate
+ * object per vertex: two doubles per vertex with no object header, unused z or array
+ * slot, and one object for the GC to trace instead of n + 1. Doubles, not floats: a
+ * float resolves only ~1.7 m at 180° longitude, coarser than the 1e-7° precision model
+ * uploads are snapped to.
+ * <p>
+ * Avoid {@code getCoordinates()} on these: it materializes (and softly caches) the
+ * Coordinate array this class exists to avoid; read through the CoordinateSequence.
+ */
+public final class PackedGeometries {
+
+    public static final int SRID = 4326;
+
+    /** lon/lat, XY only, packed doubles */
+    public static final GeometryFactory FACTORY = factory(new PrecisionModel());
+
+    private PackedGeometries() {}
+
+    public static GeometryFactory factory(PrecisionModel pm) {
+        return new GeometryFactory(pm, SRID, PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+    }
+
+    /** A line over the first {@code size} x,y pairs of {@code xy} (the array is kept when it fits exactly). */
+    public static LineString lineString(GeometryFactory factory, double[] xy, int size) {
+        double[] coords = xy.length == size * 2 ? xy : Arrays.copyOf(xy, size * 2);
+        return factory.createLineString(new PackedCoordinateSequence.Double(coords, 2, 0));
+    }
+
+    /** The same line on a packed XY sequence; returned as is when it already is one. */
+    public static LineString pack(LineString ls) {
+        if (ls == null) return null;
+        CoordinateSequence cs = ls.getCoordinateSequence();
+        if (cs instanceof PackedCoordinateSequence.Double && cs.getDimension() == 2) return ls;
+        int n = cs.size();
+        double[] xy = new double[n * 2];
+        for (int i = 0; i < n; i++) {
+            xy[2 * i] = cs.getX(i);
+            xy[2 * i + 1] = cs.getY(i);
+        }
+        LineString packed = lineString(FACTORY, xy, n);
+        packed.setSRID(ls.getSRID() == 0 ? SRID : ls.getSRID());
+        return packed;
+    }
+}
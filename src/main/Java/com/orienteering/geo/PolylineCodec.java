@@ -0,0 +1,32 @@
+package com.orienteering.geo;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+
+/** Google encoded polyline format (lat/lng order, 1e5 precision), as ST_AsEncodedPolyline(geom, 5). */
+public final class PolylineCodec {
+
+    private PolylineCodec() {}
+
+    public static String encode(CoordinateSequence cs) {
+        StringBuilder sb = new StringBuilder(cs.size() * 8);
+        long prevLat = 0, prevLng = 0;
+        for (int i = 0; i < cs.size(); i++) {
+            long lat = Math.round(cs.getY(i) * 1e5);
+            long lng = Math.round(cs.getX(i) * 1e5);
+            encodeValue(lat - prevLat, sb);
+            encodeValue(lng - prevLng, sb);
+            prevLat = lat;
+            prevLng = lng;
+        }
+        return sb.toString();
+    }
+
+    private static void encodeValue(long v, StringBuilder sb) {
+        long u = v < 0 ? ~(v << 1) : (v << 1);
+        while (u >= 0x20) {
+            sb.append((char) ((0x20 | (u & 0x1f)) + 63));
+            u >>= 5;
+        }
+        sb.append((char) (u + 63));
+    }
+}
@@ -0,0 +1,194 @@
+package com.orienteering.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar encoding of a slice of a recorded GPS track. Each column holds zig-zag
+ * varints: time as delta-of-delta milliseconds (0, one byte, for a steady 1 Hz
+ * logger), lat/lng as deltas of 1e-7 degrees, elevation as deltas of decimeters.
+ * A typical running point takes about 7 bytes.
+ * <pre>
+ * byte    format (1)
+ * byte    flags (1 = elevation column present)
+ * varint  point count
+ * varint  byte length of the time, lat and lng columns (elevation runs to the end)
+ * ...     columns
+ * </pre>
+ * Column offsets let the decoder walk all four in lockstep and stop at the end of
+ * the requested time window. Points without elevation in a chunk that has some take
+ * the previous known value (the first known one for leading gaps).
+ */
+public final class TrackCodec {
+
+    public static final int FORMAT = 1;
+    private static final int HAS_ELEVATION = 1;
+    private static final double COORD_SCALE = 1e7;
+    private static final double ELEVATION_SCALE = 10;
+
+    /** One fix; elevation in meters may be null */
+    public record Point(long timeMillis, double lat, double lng, Double elevation) {}
+
+    private TrackCodec() {}
+
+    /** Encodes points[from, to); times must be strictly increasing. */
+    public static byte[] encode(List<Point> points, int from, int to) {
+        int n = to - from;
+        Buf time = new Buf(n * 2), lat = new Buf(n * 3), lng = new Buf(n * 3), ele = new Buf(n);
+
+        Integer firstElevation = null;
+        for (int i = from; i < to && firstElevation == null; i++) {
+            Double e = points.get(i).elevation();
+            if (e != null) firstElevation = (int) Math.round(e * ELEVATION_SCALE);
+        }
+        boolean hasElevation = firstElevation != null;
+
+        long prevT = 0, prevDt = 0;
+        int prevLat = 0, prevLng = 0, prevEle = hasElevation ? firstElevation : 0;
+        for (int i = from; i < to; i++) {
+            Point p = points.get(i);
+            long t = p.timeMillis();
+            int k = i - from;
+            if (k == 0) {
+                time.writeSigned(t);
+            } else {
+                long dt = t - prevT;
+                time.writeSigned(k == 1 ? dt : dt - prevDt);
+                prevDt = dt;
+            }
+            prevT = t;
+
+            int la = (int) Math.round(p.lat() * COORD_SCALE), lo = (int) Math.round(p.lng() * COORD_SCALE);
+            lat.writeSigned(k == 0 ? la : la - prevLat);
+            lng.writeSigned(k == 0 ? lo : lo - prevLng);
+            prevLat = la;
+            prevLng = lo;
+
+            if (hasElevation) {
+                int e = p.elevation() == null ? prevEle : (int) Math.round(p.elevation() * ELEVATION_SCALE);
+                ele.writeSigned(k == 0 ? e : e - prevEle);
+                prevEle = e;
+            }
+        }
+
+        Buf out = new Buf(16 + time.size + lat.size + lng.size + ele.size);
+        out.write(FORMAT);
+        out.write(hasElevation ? HAS_ELEVATION : 0);
+        out.writeUnsigned(n);
+        out.writeUnsigned(time.size);
+        out.writeUnsigned(lat.size);
+        out.writeUnsigned(lng.size);
+        out.append(time);
+        out.append(lat);
+        out.append(lng);
+        out.append(ele);
+        return out.toByteArray();
+    }
+
+    /** Points with fromMillis <= time <= toMillis, decoding only up to the end of the window. */
+    public static List<Point> decode(byte[] data, long fromMillis, long toMillis) {
+        Reader header = new Reader(data, 0);
+        int format = header.read();
+        if (format != FORMAT) throw new IllegalStateException("Unknown track chunk format " + format);
+        boolean hasElevation = (header.read() & HAS_ELEVATION) != 0;
+        int n = (int) header.readUnsigned();
+        int timeLen = (int) header.readUnsigned();
+        int latLen = (int) header.readUnsigned();
+        int lngLen = (int) header.readUnsigned();
+
+        Reader time = new Reader(data, header.pos);
+        Reader lat = new Reader(data, header.pos + timeLen);
+        Reader lng = new Reader(data, header.pos + timeLen + latLen);
+        Reader ele = new Reader(data, header.pos + timeLen + latLen + lngLen);
+
+        List<Point> out = new ArrayList<>();
+        long t = 0, dt = 0;
+        int la = 0, lo = 0, e = 0;
+        for (int k = 0; k < n; k++) {
+            long v = time.readSigned();
+            if (k == 0) t = v;
+            else {
+                dt = k == 1 ? v : dt + v;
+                t += dt;
+            }
+            la += (int) lat.readSigned();
+            lo += (int) lng.readSigned();
+            if (hasElevation) e += (int) ele.readSigned();
+
+            if (t > toMillis) break;
+            if (t >= fromMillis) {
+                out.add(new Point(t, la / COORD_SCALE, lo / COORD_SCALE,
+                        hasElevation ? e / ELEVATION_SCALE : null));
+            }
+        }
+        return out;
+    }
+
+    /* ------------ varints ------------ */
+
+    private static final class Buf {
+        byte[] bytes;
+        int size;
+
+        Buf(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void write(int b) {
+            if (size == bytes.length) bytes = Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = (byte) b;
+        }
+
+        void writeUnsigned(long v) {
+            while ((v & ~0x7FL) != 0) {
+                write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            write((int) v);
+        }
+
+        void writeSigned(long v) {
+            writeUnsigned((v << 1) ^ (v >> 63));
+        }
+
+        void append(Buf other) {
+            if (size + other.size > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + other.size));
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    private static final class Reader {
+        final byte[] data;
+        int pos;
+
+        Reader(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        int read() {
+            return data[pos++] & 0xFF;
+        }
+
+        long readUnsigned() {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = read();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+                if (shift > 63) throw new IllegalStateException("Malformed varint in track chunk");
+            }
+        }
+
+        long readSigned() {
+            long u = readUnsigned();
+            return (u >>> 1) ^ -(u & 1);
+        }
+    }
+}
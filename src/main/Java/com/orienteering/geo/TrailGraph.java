@@ -0,0 +1,193 @@
+package com.orienteering.geo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Walkable network in compressed-sparse-row form: node coordinates, per-node edge
+ * offsets and flat edge target/length arrays. Built from heap arrays or memory-mapped
+ * from a snapshot file, in which case nothing but the small spatial grid lives on heap.
+ */
+public final class TrailGraph {
+
+    private static final int MAGIC = 0x54475231; // "TGR1"
+    private static final int HEADER_BYTES = 16;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Spatial grid cell size for nearest-node lookups, in degrees (~1 km). */
+    private static final double CELL_DEG = 0.01;
+    private static final int GRID_COLS = (int) Math.ceil(360 / CELL_DEG);
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final FloatBuffer lat;
+    private final FloatBuffer lon;
+    private final IntBuffer offsets;   // nodeCount + 1
+    private final IntBuffer targets;   // edgeCount
+    private final FloatBuffer lengths; // edgeCount, meters
+
+    // Grid: sorted distinct cell keys, start offset of each cell in cellNodes
+    private final long[] cellKeys;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+
+    private TrailGraph(int nodeCount, int edgeCount, FloatBuffer lat, FloatBuffer lon,
+                       IntBuffer offsets, IntBuffer targets, FloatBuffer lengths) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.lat = lat;
+        this.lon = lon;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.lengths = lengths;
+
+        // Sort (cell, node) pairs packed into longs; no per-node objects
+        long[] packed = new long[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            packed[i] = (cellKey(lat.get(i), lon.get(i)) << 32) | i;
+        }
+        Arrays.sort(packed);
+        int distinct = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            if (i == 0 || (packed[i] >>> 32) != (packed[i - 1] >>> 32)) distinct++;
+        }
+        this.cellKeys = new long[distinct];
+        this.cellStart = new int[distinct + 1];
+        this.cellNodes = new int[nodeCount];
+        int c = -1;
+        for (int i = 0; i < nodeCount; i++) {
+            long key = packed[i] >>> 32;
+            if (c < 0 || cellKeys[c] != key) {
+                cellKeys[++c] = key;
+                cellStart[c] = i;
+            }
+            cellNodes[i] = (int) packed[i];
+        }
+        cellStart[distinct] = nodeCount;
+    }
+
+    public static TrailGraph of(float[] lat, float[] lon, int[] offsets, int[] targets, float[] lengths) {
+        return new TrailGraph(lat.length, targets.length,
+                FloatBuffer.wrap(lat), FloatBuffer.wrap(lon),
+                IntBuffer.wrap(offsets), IntBuffer.wrap(targets), FloatBuffer.wrap(lengths));
+    }
+
+    public int nodeCount() { return nodeCount; }
+    public int edgeCount() { return edgeCount; }
+    public double lat(int node) { return lat.get(node); }
+    public double lon(int node) { return lon.get(node); }
+    public int firstEdge(int node) { return offsets.get(node); }
+    public int endEdge(int node) { return offsets.get(node + 1); }
+    public int target(int edge) { return targets.get(edge); }
+    public float length(int edge) { return lengths.get(edge); }
+
+    /** Closest node within {@code maxMeters}, or -1. */
+    public int nearestNode(double qLat, double qLon, double maxMeters) {
+        int rings = (int) Math.ceil(GeoMath.metersToDegrees(maxMeters, qLat) / CELL_DEG);
+        int row = (int) Math.floor((qLat + 90) / CELL_DEG);
+        int col = (int) Math.floor((qLon + 180) / CELL_DEG);
+        int best = -1;
+        double bestDist = maxMeters;
+        for (int r = 0; r <= rings; r++) {
+            for (int dr = -r; dr <= r; dr++) {
+                for (int dc = -r; dc <= r; dc++) {
+                    if (Math.abs(dr) != r && Math.abs(dc) != r) continue; // ring border only
+                    int ci = Arrays.binarySearch(cellKeys, (long) (row + dr) * GRID_COLS + (col + dc));
+                    if (ci < 0) continue;
+                    for (int k = cellStart[ci]; k < cellStart[ci + 1]; k++) {
+                        int n = cellNodes[k];
+                        double d = GeoMath.haversine(qLat, qLon, lat.get(n), lon.get(n));
+                        if (d < bestDist) { bestDist = d; best = n; }
+                    }
+                }
+            }
+            // Anything in the next ring is at least r cells away
+            if (best >= 0 && bestDist < r * CELL_DEG * GeoMath.METERS_PER_DEGREE
+                    * Math.cos(Math.toRadians(qLat))) break;
+        }
+        return best;
+    }
+
+    private static long cellKey(double lat, double lon) {
+        long row = (long) Math.floor((lat + 90) / CELL_DEG);
+        long col = (long) Math.floor((lon + 180) / CELL_DEG);
+        return row * GRID_COLS + col;
+    }
+
+    /* ------------ snapshot ------------ */
+
+    /** Writes the graph to {@code file} atomically (temp file + move). */
+    public void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ORDER);
+            buf.putInt(MAGIC).putInt(1).putInt(nodeCount).putInt(edgeCount);
+            buf = writeFloats(ch, buf, lat, nodeCount);
+            buf = writeFloats(ch, buf, lon, nodeCount);
+            buf = writeInts(ch, buf, offsets, nodeCount + 1);
+            buf = writeInts(ch, buf, targets, edgeCount);
+            buf = writeFloats(ch, buf, lengths, edgeCount);
+            flush(ch, buf);
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Maps a snapshot written by {@link #save}; the arrays stay off-heap. */
+    public static TrailGraph load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map in one region: " + file);
+            }
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            map.order(ORDER);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != 1) {
+                throw new IOException("Not a trail graph snapshot: " + file);
+            }
+            int n = map.getInt(8), m = map.getInt(12);
+            int pos = HEADER_BYTES;
+            FloatBuffer lat = map.slice(pos, n * 4).order(ORDER).asFloatBuffer();   pos += n * 4;
+            FloatBuffer lon = map.slice(pos, n * 4).order(ORDER).asFloatBuffer();   pos += n * 4;
+            IntBuffer off = map.slice(pos, (n + 1) * 4).order(ORDER).asIntBuffer(); pos += (n + 1) * 4;
+            IntBuffer tgt = map.slice(pos, m * 4).order(ORDER).asIntBuffer();       pos += m * 4;
+            FloatBuffer len = map.slice(pos, m * 4).order(ORDER).asFloatBuffer();
+            return new TrailGraph(n, m, lat, lon, off, tgt, len);
+        }
+    }
+
+    private static ByteBuffer writeFloats(FileChannel ch, ByteBuffer buf, FloatBuffer src, int count)
+            throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (buf.remaining() < 4) buf = flush(ch, buf);
+            buf.putFloat(src.get(i));
+        }
+        return buf;
+    }
+
+    private static ByteBuffer writeInts(FileChannel ch, ByteBuffer buf, IntBuffer src, int count)
+            throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (buf.remaining() < 4) buf = flush(ch, buf);
+            buf.putInt(src.get(i));
+        }
+        return buf;
+    }
+
+    private static ByteBuffer flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+        return buf;
+    }
+}
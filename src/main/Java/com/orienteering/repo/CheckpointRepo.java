@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CheckpointRepo extends JpaRepository<Checkpoint, Long> {
@@ -24,4 +25,9 @@ public interface CheckpointRepo extends JpaRepository<Checkpoint, Long> {
     List<Checkpoint> findNear(@Param("lat") double lat,
                               @Param("lng") double lng,
                               @Param("meters") double meters);
+
+    /** [routeId, orderIndex, lat, lng, description] rows without loading the routes */
+    @Query("select c.route.id, c.orderIndex, c.lat, c.lng, c.description from Checkpoint c"
+            + " where c.route.id in :routeIds order by c.route.id, c.orderIndex")
+    List<Object[]> findRowsByRouteIds(@Param("routeIds") Collection<Long> routeIds);
 }
@@ -0,0 +1,70 @@
+package com.orienteering.repo;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/** SQL for keeping route_changes bounded: compaction, tombstone expiry and the cursor horizon. */
+@Repository
+public class RouteChangeCommands {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public RouteChangeCommands(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Removes entries older than {@code before} that a later entry of the same route
+     * supersedes. The feed collapses to the latest entry per route anyway, so no cursor
+     * sees a difference, except for visibility: if a removed entry was public, the route's
+     * remaining entries are marked was_public so viewers who lost access still get a
+     * tombstone.
+     */
+    public int compact(LocalDateTime before) {
+        return jdbc.update("""
+                WITH gone AS (
+                    DELETE FROM route_changes c
+                    USING route_changes l
+                    WHERE l.route_id = c.route_id AND (l.tx_id, l.seq) > (c.tx_id, c.seq)
+                      AND c.changed_at < :before
+                    RETURNING c.route_id, (c.was_public OR c.is_public) AS visible
+                )
+                UPDATE route_changes r SET was_public = true
+                FROM (SELECT DISTINCT route_id FROM gone WHERE visible) g
+                WHERE r.route_id = g.route_id AND NOT r.was_public
+                """, new MapSqlParameterSource("before", Timestamp.valueOf(before)));
+    }
+
+    /**
+     * Drops DELETED entries older than {@code before} and moves the horizon past the
+     * newest of them: a cursor below it may have missed a deletion.
+     */
+    public int expireTombstones(LocalDateTime before) {
+        return jdbc.update("""
+                WITH gone AS (
+                    DELETE FROM route_changes
+                    WHERE op = 'DELETED' AND changed_at < :before
+                    RETURNING tx_id, seq
+                )
+                INSERT INTO route_change_horizon AS h (id, tx_id, seq)
+                SELECT 1, g.tx_id, g.seq FROM gone g
+                ORDER BY g.tx_id DESC, g.seq DESC
+                LIMIT 1
+                ON CONFLICT (id) DO UPDATE SET tx_id = EXCLUDED.tx_id, seq = EXCLUDED.seq
+                WHERE (h.tx_id, h.seq) < (EXCLUDED.tx_id, EXCLUDED.seq)
+                """, new MapSqlParameterSource("before", Timestamp.valueOf(before)));
+    }
+
+    /** [tx_id, seq] of the newest expired tombstone, if any expired yet */
+    public Optional<long[]> horizon() {
+        List<long[]> rows = jdbc.query("SELECT tx_id, seq FROM route_change_horizon WHERE id = 1",
+                (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        return rows.stream().findFirst();
+    }
+}
@@ -0,0 +1,29 @@
+package com.orienteering.repo;
+
+import com.orienteering.domain.RouteChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface RouteChangeRepo extends JpaRepository<RouteChange, Long> {
+
+    /**
+     * Changes after the cursor that the viewer may know about, in (tx_id, seq) order.
+     * Only transactions older than the snapshot's xmin are returned: every one of them
+     * has finished, so no later commit can still add rows before the returned cursor.
+     */
+    @Query(value = """
+        SELECT * FROM route_changes c
+        WHERE (c.tx_id, c.seq) > (:txId, :seq)
+          AND c.tx_id < txid_snapshot_xmin(txid_current_snapshot())
+          AND (c.is_public OR c.was_public OR lower(c.owner_username) = lower(:viewer))
+        ORDER BY c.tx_id, c.seq
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<RouteChange> findVisibleAfter(@Param("txId") long txId,
+                                       @Param("seq") long seq,
+                                       @Param("viewer") String viewer,
+                                       @Param("limit") int limit);
+}
@@ -0,0 +1,124 @@
+package com.orienteering.repo;
+
+import com.orienteering.domain.RouteStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Route writes that are a single SQL statement with no entity load: the owner
+ * (and, for PATCH, version) checks live in the WHERE clause and RETURNING hands back
+ * what the caller needs. An empty result means the check failed; use
+ * {@link #findOwnerAndVersion} to tell not-found, forbidden and conflict apart.
+ */
+@Repository
+public class RouteCommands {
+
+    /** Row after a PATCH, plus what change listeners need */
+    public record Patched(RouteView view, boolean wasPublic, Integer oldDistanceMeters, byte[] geomWkbIfVisibilityChanged) {}
+
+    /** Row removed by an owner-checked delete (geometry only when it was public) */
+    public record Deleted(String ownerUsername, long version, boolean wasPublic, Integer distanceMeters,
+                          LocalDateTime createdAt, byte[] geomWkbIfPublic) {}
+
+    public record OwnerVersion(String ownerUsername, long version) {}
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public RouteCommands(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Applies the non-null fields when id, owner and version all match. The self-join
+     * on "o" exposes the pre-update visibility and distance in RETURNING.
+     */
+    public Optional<Patched> patch(long id, String owner, long expectedVersion,
+                                   String name, Integer distanceMeters, Boolean isPublic) {
+        MapSqlParameterSource p = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("owner", owner)
+                .addValue("version", expectedVersion)
+                .addValue("name", name, Types.VARCHAR)
+                .addValue("distance", distanceMeters, Types.INTEGER)
+                .addValue("isPublic", isPublic, Types.BOOLEAN);
+        List<Patched> rows = jdbc.query("""
+                UPDATE routes r SET
+                    name = COALESCE(:name, r.name),
+                    distance_meters = COALESCE(:distance, r.distance_meters),
+                    is_public = COALESCE(:isPublic, r.is_public),
+                    version = r.version + 1
+                FROM routes o
+                WHERE r.id = :id AND o.id = r.id
+                  AND lower(r.owner_username) = lower(:owner)
+                  AND r.version = :version
+                RETURNING r.id, r.owner_username, r.name, r.distance_meters, r.is_public, r.created_at,
+                          r.ascent_meters, r.descent_meters, r.status, r.processing_error, r.version,
+                          r.bbox_min_lng, r.bbox_min_lat, r.bbox_max_lng, r.bbox_max_lat,
+                          r.start_lng, r.start_lat, r.vertex_count,
+                          o.is_public AS was_public, o.distance_meters AS old_distance,
+                          CASE WHEN o.is_public IS DISTINCT FROM r.is_public THEN ST_AsBinary(r.geom) END AS geom_wkb
+                """, p, (rs, i) -> new Patched(summary(rs), rs.getBoolean("was_public"),
+                        rs.getObject("old_distance", Integer.class), rs.getBytes("geom_wkb")));
+        return rows.stream().findFirst();
+    }
+
+    public Optional<Deleted> deleteOwned(long id, String owner) {
+        List<Deleted> rows = jdbc.query("""
+                DELETE FROM routes
+                WHERE id = :id AND lower(owner_username) = lower(:owner)
+                RETURNING owner_username, version, is_public, distance_meters, created_at,
+                          CASE WHEN is_public THEN ST_AsBinary(geom) END AS geom_wkb
+                """,
+                new MapSqlParameterSource().addValue("id", id).addValue("owner", owner),
+                (rs, i) -> {
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    return new Deleted(rs.getString("owner_username"), rs.getLong("version"), rs.getBoolean("is_public"),
+                            rs.getObject("distance_meters", Integer.class),
+                            createdAt == null ? null : createdAt.toLocalDateTime(),
+                            rs.getBytes("geom_wkb"));
+                });
+        return rows.stream().findFirst();
+    }
+
+    /** Only used to explain a failed conditional write */
+    public Optional<OwnerVersion> findOwnerAndVersion(long id) {
+        List<OwnerVersion> rows = jdbc.query(
+                "SELECT owner_username, version FROM routes WHERE id = :id",
+                new MapSqlParameterSource("id", id),
+                (rs, i) -> new OwnerVersion(rs.getString("owner_username"), rs.getLong("version")));
+        return rows.stream().findFirst();
+    }
+
+    private static RouteView summary(ResultSet rs) throws SQLException {
+        String status = rs.getString("status");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new RouteView(
+                rs.getLong("id"),
+                rs.getString("owner_username"),
+                rs.getString("name"),
+                rs.getObject("distance_meters", Integer.class),
+                rs.getBoolean("is_public"),
+                createdAt == null ? null : createdAt.toLocalDateTime(),
+                rs.getObject("ascent_meters", Integer.class),
+                rs.getObject("descent_meters", Integer.class),
+                status == null ? null : RouteStatus.valueOf(status),
+                rs.getString("processing_error"),
+                rs.getLong("version"),
+                rs.getObject("bbox_min_lng", Double.class),
+                rs.getObject("bbox_min_lat", Double.class),
+                rs.getObject("bbox_max_lng", Double.class),
+                rs.getObject("bbox_max_lat", Double.class),
+                rs.getObject("start_lng", Double.class),
+                rs.getObject("start_lat", Double.class),
+                rs.getObject("vertex_count", Integer.class));
+    }
+}
@@ -1,18 +1,143 @@
 package com.orienteering.repo;
 
 import com.orienteering.domain.Route;
+import com.orienteering.domain.RouteStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface RouteRepo extends JpaRepository<Route, Long> {
 
+    String VIEW_SUMMARY = "select new com.orienteering.repo.RouteView(r.id, r.ownerUsername, r.name, r.distanceMeters,"
+            + " r.isPublic, r.createdAt, r.ascentMeters, r.descentMeters, r.status, r.processingError, r.version,"
+            + " r.bboxMinLng, r.bboxMinLat, r.bboxMaxLng, r.bboxMaxLat, r.startLng, r.startLat, r.vertexCount";
+    String VIEW_FROM = " from Route r";
+
+    @Query(VIEW_SUMMARY + ", r.geomWkt, r.geomPolyline)" + VIEW_FROM + " where r.id = :id")
+    Optional<RouteView> findViewById(@Param("id") Long id);
+
+    @Query(VIEW_SUMMARY + ", r.geomWkt, r.geomPolyline)" + VIEW_FROM + " where r.id in :ids")
+    List<RouteView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(VIEW_SUMMARY + ")" + VIEW_FROM + " where r.id in :ids")
+    List<RouteView> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = VIEW_SUMMARY + ")" + VIEW_FROM + " where r.isPublic = true",
+            countQuery = "select count(r) from Route r where r.isPublic = true")
+    Page<RouteView> findPublicSummaries(Pageable pageable);
+
+    @Query(VIEW_SUMMARY + ")" + VIEW_FROM + " where r.ownerUsername = :owner")
+    List<RouteView> findSummariesByOwner(@Param("owner") String ownerUsername);
+
     Page<Route> findByIsPublicTrue(Pageable pageable);
 
     List<Route> findByOwnerUsername(String ownerUsername);
 
+    /** [count, sum(id), sum(version)] over public routes with geometry: checks a heatmap snapshot */
+    @Query(value = """
+        SELECT count(*), coalesce(sum(id), 0), coalesce(sum(version), 0)
+        FROM routes
+        WHERE is_public AND geom IS NOT NULL
+        """, nativeQuery = true)
+    List<Object[]> publicGeometryChecksum();
+
+    /** Keyset batches for rebuilding in-memory indexes */
+    List<Route> findTop500ByIsPublicTrueAndGeomIsNotNullAndIdGreaterThanOrderByIdAsc(Long id);
+
+    @Query("select r.id from Route r where r.status = :status")
+    List<Long> findIdsByStatus(@Param("status") RouteStatus status);
+
+    /** Keyset batches of [id, start_lng, start_lat] for public routes, from the read-model columns */
+    @Query(value = """
+        SELECT r.id, r.start_lng, r.start_lat FROM routes r
+        WHERE r.is_public AND r.start_lng IS NOT NULL AND r.id > :afterId
+        ORDER BY r.id
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Object[]> findPublicStartsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /** Current [id, start_lng, start_lat] of those ids that are public and have a geometry */
+    @Query(value = """
+        SELECT r.id, r.start_lng, r.start_lat FROM routes r
+        WHERE r.id IN (:ids) AND r.is_public AND r.start_lng IS NOT NULL
+        """, nativeQuery = true)
+    List<Object[]> findPublicStartsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** Public routes intersecting a box, as [id, version] pairs (cheap: no geometry leaves the DB) */
+    @Query(value = """
+        SELECT r.id, r.version FROM routes r
+        WHERE r.is_public
+          AND r.geom && ST_MakeEnvelope(:minLng, :minLat, :maxLng, :maxLat, 4326)
+        ORDER BY r.id
+        LIMIT :maxRoutes
+        """, nativeQuery = true)
+    List<Object[]> findPublicIdVersionsInBox(@Param("minLng") double minLng, @Param("minLat") double minLat,
+                                             @Param("maxLng") double maxLng, @Param("maxLat") double maxLat,
+                                             @Param("maxRoutes") int maxRoutes);
+
+    /**
+     * Nearest public routes to a point, closest first by sphere distance (index KNN over
+     * idx_routes_geog_public), as [id, name, owner_username, distance_meters, start_lng,
+     * start_lat, sphere_meters, meters]; meters is the spheroid (WGS84) distance to the
+     * route. Routes nearer than minSphere have already been paged past.
+     */
+    @Query(value = """
+        WITH knn AS (
+            SELECT r.id, geography(r.geom) <-> geography(ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)) AS sphere
+            FROM routes r
+            WHERE r.is_public
+              AND ST_DWithin(geography(r.geom), geography(ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)), :radius, false)
+              AND geography(r.geom) <-> geography(ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)) >= :minSphere
+              AND (r.distance_meters BETWEEN :minLen AND :maxLen OR (r.distance_meters IS NULL AND :anyLength))
+            ORDER BY geography(r.geom) <-> geography(ST_SetSRID(ST_MakePoint(:lng, :lat), 4326))
+            LIMIT :candidates
+        )
+        SELECT r.id, r.name, r.owner_username, r.distance_meters, r.start_lng, r.start_lat, k.sphere,
+               ST_Distance(geography(r.geom), geography(ST_SetSRID(ST_MakePoint(:lng, :lat), 4326))) AS meters
+        FROM knn k JOIN routes r ON r.id = k.id
+        ORDER BY k.sphere
+        """, nativeQuery = true)
+    List<Object[]> findNearbyPublicCandidates(@Param("lng") double lng, @Param("lat") double lat,
+                                              @Param("radius") double radiusMeters,
+                                              @Param("minSphere") double minSphereMeters,
+                                              @Param("minLen") int minLength, @Param("maxLen") int maxLength,
+                                              @Param("anyLength") boolean anyLength,
+                                              @Param("candidates") int candidates);
+
+    /**
+     * Candidates for similarity ranking: the GiST index prunes by envelope, then the
+     * envelope extents and start/end points (either direction) must be within tolerance.
+     */
+    @Query(value = """
+        SELECT r.id FROM routes r
+        WHERE r.geom && ST_Expand(ST_MakeEnvelope(:minLng, :minLat, :maxLng, :maxLat, 4326), :tol)
+          AND r.id <> :excludeId
+          AND (r.is_public OR lower(r.owner_username) = lower(:viewer))
+          AND abs(ST_XMin(r.geom) - :minLng) <= :tol AND abs(ST_XMax(r.geom) - :maxLng) <= :tol
+          AND abs(ST_YMin(r.geom) - :minLat) <= :tol AND abs(ST_YMax(r.geom) - :maxLat) <= :tol
+          AND (
+               (ST_DWithin(ST_StartPoint(r.geom), ST_SetSRID(ST_MakePoint(:startLng, :startLat), 4326), :tol)
+            AND ST_DWithin(ST_EndPoint(r.geom),   ST_SetSRID(ST_MakePoint(:endLng, :endLat), 4326), :tol))
+            OR (ST_DWithin(ST_StartPoint(r.geom), ST_SetSRID(ST_MakePoint(:endLng, :endLat), 4326), :tol)
+            AND ST_DWithin(ST_EndPoint(r.geom),   ST_SetSRID(ST_MakePoint(:startLng, :startLat), 4326), :tol))
+          )
+        LIMIT :maxCandidates
+        """, nativeQuery = true)
+    List<Long> findSimilarCandidateIds(@Param("minLng") double minLng, @Param("minLat") double minLat,
+                                       @Param("maxLng") double maxLng, @Param("maxLat") double maxLat,
+                                       @Param("startLng") double startLng, @Param("startLat") double startLat,
+                                       @Param("endLng") double endLng, @Param("endLat") double endLat,
+                                       @Param("tol") double toleranceDegrees,
+                                       @Param("excludeId") long excludeId,
+                                       @Param("viewer") String viewer,
+                                       @Param("maxCandidates") int maxCandidates);
+
     // (optional, if you prefer sorted results)
     // List<Route> findByOwnerUsernameOrderByCreatedAtDesc(String ownerUsername);
 }
@@ -0,0 +1,52 @@
+package com.orienteering.repo;
+
+import com.orienteering.domain.RouteStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Route row without the PostGIS geometry or elevation profile: details and lists read
+ * this (see RouteRepo) so no JTS objects are built. Summaries leave the geometry
+ * payload fields null.
+ */
+public record RouteView(
+        Long id,
+        String ownerUsername,
+        String name,
+        Integer distanceMeters,
+        boolean isPublic,
+        LocalDateTime createdAt,
+        Integer ascentMeters,
+        Integer descentMeters,
+        RouteStatus status,
+        String processingError,
+        Long version,
+        Double bboxMinLng,
+        Double bboxMinLat,
+        Double bboxMaxLng,
+        Double bboxMaxLat,
+        Double startLng,
+        Double startLat,
+        Integer vertexCount,
+        String geomWkt,
+        String geomPolyline
+) {
+    /** Summary (list) shape */
+    public RouteView(Long id, String ownerUsername, String name, Integer distanceMeters, boolean isPublic,
+                     LocalDateTime createdAt, Integer ascentMeters, Integer descentMeters,
+                     RouteStatus status, String processingError, Long version,
+                     Double bboxMinLng, Double bboxMinLat, Double bboxMaxLng, Double bboxMaxLat,
+                     Double startLng, Double startLat, Integer vertexCount) {
+        this(id, ownerUsername, name, distanceMeters, isPublic, createdAt, ascentMeters, descentMeters,
+                status, processingError, version, bboxMinLng, bboxMinLat, bboxMaxLng, bboxMaxLat,
+                startLng, startLat, vertexCount, null, null);
+    }
+
+    public RouteStatus statusOrReady() {
+        return status == null ? RouteStatus.READY : status;
+    }
+
+    public boolean hasGeom() {
+        return vertexCount != null;
+    }
+}
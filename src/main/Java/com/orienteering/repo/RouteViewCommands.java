@@ -0,0 +1,65 @@
+package com.orienteering.repo;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** SQL for route_view_buckets: batched view upserts and decayed score aggregation. */
+@Repository
+public class RouteViewCommands {
+
+    public record Score(long routeId, double score) {}
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public RouteViewCommands(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Adds views[i] to routeIds[i] in one bucket, as a single statement over two arrays
+     * (ids sorted, so concurrent flushes from several nodes lock rows in the same order).
+     */
+    public int addViews(LocalDateTime bucket, long[] routeIds, long[] views) {
+        MapSqlParameterSource p = new MapSqlParameterSource()
+                .addValue("bucket", Timestamp.valueOf(bucket))
+                .addValue("ids", routeIds)
+                .addValue("views", views);
+        return jdbc.update("""
+                INSERT INTO route_view_buckets AS b (route_id, bucket_start, views)
+                SELECT t.id, :bucket, t.v FROM unnest(CAST(:ids AS bigint[]), CAST(:views AS bigint[])) AS t(id, v)
+                ORDER BY t.id
+                ON CONFLICT (route_id, bucket_start) DO UPDATE SET views = b.views + EXCLUDED.views
+                """, p);
+    }
+
+    /**
+     * Highest decayed scores since {@code from}: each bucket's views weighted by
+     * 2^((bucket - epoch) / halfLife). Public routes only.
+     */
+    public List<Score> topScores(LocalDateTime from, LocalDateTime epoch, Duration halfLife, int limit) {
+        MapSqlParameterSource p = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("epoch", Timestamp.valueOf(epoch))
+                .addValue("halfLife", (double) halfLife.toSeconds())
+                .addValue("limit", limit);
+        return jdbc.query("""
+                SELECT b.route_id, sum(b.views * power(2, extract(epoch FROM b.bucket_start - :epoch) / :halfLife)) AS score
+                FROM route_view_buckets b JOIN routes r ON r.id = b.route_id
+                WHERE b.bucket_start >= :from AND r.is_public
+                GROUP BY b.route_id
+                ORDER BY score DESC
+                LIMIT :limit
+                """, p, (rs, i) -> new Score(rs.getLong(1), rs.getDouble(2)));
+    }
+
+    public int deleteBefore(LocalDateTime cutoff) {
+        return jdbc.update("DELETE FROM route_view_buckets WHERE bucket_start < :cutoff",
+                new MapSqlParameterSource("cutoff", Timestamp.valueOf(cutoff)));
+    }
+}
@@ -0,0 +1,26 @@
+package com.orienteering.repo;
+
+import com.orienteering.domain.TrackChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TrackChunkRepo extends JpaRepository<TrackChunk, Long> {
+
+    /** Chunks overlapping [fromMs, toMs], in track order */
+    @Query("""
+        select c from TrackChunk c
+        where c.trackId = :trackId and c.endMs >= :fromMs and c.startMs <= :toMs
+        order by c.seq
+        """)
+    List<TrackChunk> findOverlapping(@Param("trackId") Long trackId,
+                                     @Param("fromMs") long fromMs,
+                                     @Param("toMs") long toMs);
+
+    @Modifying
+    @Query("delete from TrackChunk c where c.trackId = :trackId")
+    int deleteByTrackId(@Param("trackId") Long trackId);
+}
@@ -0,0 +1,20 @@
+package com.orienteering.repo;
+
+import com.orienteering.domain.Track;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TrackRepo extends JpaRepository<Track, Long> {
+
+    /** Tracks of a route the viewer may see: public ones and their own */
+    @Query("""
+        select t from Track t
+        where t.routeId = :routeId
+          and (t.isPublic = true or lower(t.ownerUsername) = lower(:viewer))
+        order by t.startedAt desc
+        """)
+    List<Track> findVisibleByRoute(@Param("routeId") Long routeId, @Param("viewer") String viewer);
+}
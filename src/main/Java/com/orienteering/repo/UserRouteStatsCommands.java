@@ -0,0 +1,117 @@
+package com.orienteering.repo;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** SQL for user_route_stats: delta upserts, exact recomputes and batch reconciliation. */
+@Repository
+public class UserRouteStatsCommands {
+
+    /** longest / last created after an upsert, to decide whether an exact recompute is needed */
+    public record Extremes(Integer longestDistanceMeters, LocalDateTime lastCreatedAt) {}
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public UserRouteStatsCommands(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Adds the deltas (creating the row on first use). Longest and last-created can only
+     * grow here; shrinking them needs {@link #recomputeExtremes}.
+     */
+    public Extremes applyDelta(String owner, long dCount, long dPublic, long dDistance,
+                               Integer candidateLongest, LocalDateTime candidateCreatedAt) {
+        MapSqlParameterSource p = new MapSqlParameterSource()
+                .addValue("owner", owner)
+                .addValue("dCount", dCount)
+                .addValue("dPublic", dPublic)
+                .addValue("dDistance", dDistance)
+                .addValue("longest", candidateLongest, Types.INTEGER)
+                .addValue("createdAt", candidateCreatedAt == null ? null : Timestamp.valueOf(candidateCreatedAt), Types.TIMESTAMP);
+        return jdbc.queryForObject("""
+                INSERT INTO user_route_stats AS s (owner_username, route_count, public_count, total_distance_meters,
+                                                   longest_distance_meters, last_created_at, updated_at)
+                VALUES (lower(:owner), :dCount, :dPublic, :dDistance, :longest, :createdAt, now())
+                ON CONFLICT (owner_username) DO UPDATE SET
+                    route_count = s.route_count + EXCLUDED.route_count,
+                    public_count = s.public_count + EXCLUDED.public_count,
+                    total_distance_meters = s.total_distance_meters + EXCLUDED.total_distance_meters,
+                    longest_distance_meters = GREATEST(s.longest_distance_meters, EXCLUDED.longest_distance_meters),
+                    last_created_at = GREATEST(s.last_created_at, EXCLUDED.last_created_at),
+                    updated_at = now()
+                RETURNING longest_distance_meters, last_created_at
+                """, p, (rs, i) -> {
+            Timestamp last = rs.getTimestamp("last_created_at");
+            return new Extremes(rs.getObject("longest_distance_meters", Integer.class),
+                    last == null ? null : last.toLocalDateTime());
+        });
+    }
+
+    /** Exact longest / last-created for one owner (the routes write must be flushed first). */
+    public void recomputeExtremes(String owner) {
+        jdbc.update("""
+                UPDATE user_route_stats s SET
+                    (longest_distance_meters, last_created_at) =
+                        (SELECT max(r.distance_meters), max(r.created_at)
+                         FROM routes r WHERE lower(r.owner_username) = s.owner_username),
+                    updated_at = now()
+                WHERE s.owner_username = lower(:owner)
+                """, new MapSqlParameterSource("owner", owner));
+    }
+
+    /** Owners (lower-cased) after the given one, from routes and from existing stats rows. */
+    public List<String> ownersAfter(String after, int limit) {
+        return jdbc.queryForList("""
+                SELECT o FROM (
+                    SELECT lower(owner_username) AS o FROM routes
+                    UNION
+                    SELECT owner_username FROM user_route_stats
+                ) owners
+                WHERE o > :after
+                ORDER BY o
+                LIMIT :limit
+                """, new MapSqlParameterSource().addValue("after", after).addValue("limit", limit), String.class);
+    }
+
+    /**
+     * Rewrites the rows of these owners from the routes table. The rows are created and
+     * locked first, so a concurrent route write either commits before the aggregate
+     * runs (and is counted) or waits and applies its delta on top.
+     */
+    public void reconcile(List<String> owners) {
+        MapSqlParameterSource p = new MapSqlParameterSource("owners", owners);
+        jdbc.update("""
+                INSERT INTO user_route_stats (owner_username, route_count, public_count, total_distance_meters, updated_at)
+                SELECT DISTINCT lower(owner_username), 0, 0, 0, now() FROM routes
+                WHERE lower(owner_username) IN (:owners)
+                ON CONFLICT (owner_username) DO NOTHING
+                """, p);
+        jdbc.queryForList("""
+                SELECT owner_username FROM user_route_stats
+                WHERE owner_username IN (:owners)
+                ORDER BY owner_username
+                FOR UPDATE
+                """, p, String.class);
+        jdbc.update("""
+                UPDATE user_route_stats s SET
+                    (route_count, public_count, total_distance_meters, longest_distance_meters, last_created_at) =
+                        (SELECT count(*), count(*) FILTER (WHERE r.is_public), coalesce(sum(r.distance_meters), 0),
+                                max(r.distance_meters), max(r.created_at)
+                         FROM routes r WHERE lower(r.owner_username) = s.owner_username),
+                    updated_at = now()
+                WHERE s.owner_username IN (:owners)
+                """, p);
+    }
+
+    public boolean isEmpty() {
+        Boolean any = jdbc.getJdbcTemplate().queryForObject("SELECT EXISTS (SELECT 1 FROM user_route_stats)", Boolean.class);
+        return !Boolean.TRUE.equals(any);
+    }
+}
@@ -0,0 +1,7 @@
+package com.orienteering.repo;
+
+import com.orienteering.domain.UserRouteStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserRouteStatsRepo extends JpaRepository<UserRouteStats, String> {
+}
@@ -7,8 +7,8 @@ import com.orienteering.dto.AuthRes;
 import com.orienteering.dto.LoginReq;
 import com.orienteering.dto.RegisterReq;
 import com.orienteering.repo.UserRepo;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,18 +23,24 @@ public class AuthService {
     private final UserRepo userRepo;
     private final PasswordEncoder encoder;
     private final JwtService jwtService;
-    private final AuthenticationManager authManager;
+    private final PasswordHashingPool hashingPool;
+    private final MeterRegistry meterRegistry;
+
+    /** Hash compared against when the email is unknown, so both paths cost one bcrypt. */
+    private volatile String dummyHash;
 
     public AuthService(
             UserRepo userRepo,
             PasswordEncoder encoder,
             JwtService jwtService,
-            AuthenticationManager authManager
+            PasswordHashingPool hashingPool,
+            MeterRegistry meterRegistry
     ) {
         this.userRepo = userRepo;
         this.encoder = encoder;
         this.jwtService = jwtService;
-        this.authManager = authManager;
+        this.hashingPool = hashingPool;
+        this.meterRegistry = meterRegistry;
     }
 
     @Transactional
@@ -51,29 +57,69 @@ public class AuthService {
         // Your schema requires username; we use email as username
         u.setUsername(req.getEmail());
         u.setEmail(req.getEmail());
-        u.setPassword(encoder.encode(req.getPassword()));
+        u.setPassword(hashingPool.run(() -> encoder.encode(req.getPassword())));
         u.setRole(Role.USER); // 👈 default all self-registrations to USER
         userRepo.save(u);
 
         // Issue JWT (subject = email)
-        String token = jwtService.generateToken(u.getEmail());
+        String token = jwtService.generateToken(u.getEmail(), u.getRole().name());
         return new AuthRes(token, u.getEmail(), u.getRole().name());
     }
 
+    /**
+     * Single user lookup, bcrypt on {@link PasswordHashingPool}, and no DB connection
+     * held while hashing. Hashes weaker than the configured cost are upgraded on success.
+     */
     public AuthRes login(LoginReq req) {
-        if (req == null || req.getEmail() == null || req.getPassword() == null) {
-            throw new ResponseStatusException(UNAUTHORIZED, "Invalid credentials");
-        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            if (req == null || req.getEmail() == null || req.getPassword() == null) {
+                outcome = "invalid";
+                throw new ResponseStatusException(UNAUTHORIZED, "Invalid credentials");
+            }
+
+            User user = userRepo.findByEmail(req.getEmail()).orElse(null);
+            String raw = req.getPassword();
+
+            if (user == null) {
+                // Same cost as a real check so response time does not reveal unknown emails
+                String dummy = dummyHash();
+                hashingPool.run(() -> encoder.matches(raw, dummy));
+                outcome = "invalid";
+                throw new ResponseStatusException(UNAUTHORIZED, "Invalid credentials");
+            }
 
-        // authenticate (checks password via PasswordEncoder)
-        var authToken = new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword());
-        authManager.authenticate(authToken);
+            String hash = user.getPassword();
+            if (!hashingPool.run(() -> encoder.matches(raw, hash))) {
+                outcome = "invalid";
+                throw new ResponseStatusException(UNAUTHORIZED, "Invalid credentials");
+            }
 
-        // on success issue JWT
-        var user = userRepo.findByEmail(req.getEmail())
-                .orElseThrow(() -> new ResponseStatusException(UNAUTHORIZED, "Invalid credentials"));
+            if (encoder.upgradeEncoding(hash)) {
+                String upgraded = hashingPool.run(() -> encoder.encode(raw));
+                // Conditional on the old hash, so a concurrent password change wins
+                userRepo.updatePasswordIfUnchanged(user.getId(), hash, upgraded);
+            }
 
-        String token = jwtService.generateToken(user.getEmail());
-        return new AuthRes(token, user.getEmail(), user.getRole().name());
+            outcome = "success";
+            String token = jwtService.generateToken(user.getEmail(), user.getRole().name());
+            return new AuthRes(token, user.getEmail(), user.getRole().name());
+        } finally {
+            sample.stop(Timer.builder("auth.login.latency")
+                    .description("Login request latency including queueing for bcrypt")
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    private String dummyHash() {
+        String h = dummyHash;
+        if (h == null) {
+            h = hashingPool.run(() -> encoder.encode("dummy-password-for-unknown-users"));
+            dummyHash = h;
+        }
+        return h;
     }
 }
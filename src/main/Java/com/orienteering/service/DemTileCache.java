@@ -0,0 +1,146 @@
+package com.orienteering.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SRTM .hgt tiles (1x1 degree, big-endian int16, north row first) memory-mapped from
+ * a local directory. Lookups read straight from the mapping; the most recently used
+ * tiles stay mapped and older ones are dropped for the GC to unmap.
+ * <p>
+ * A sample of a mapped tile is a concurrent map read and a stamp on the entry, with no
+ * lock. Only mapping a new tile (and evicting the least recently stamped one) locks.
+ */
+@Component
+public class DemTileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DemTileCache.class);
+    private static final short VOID = Short.MIN_VALUE;
+
+    /** Marker for tiles that are not on disk, so we don't stat the file every time. */
+    private static final Tile MISSING = new Tile(null, 0);
+
+    private final Path dir;
+    private final int maxTiles;
+    private final Map<Integer, Entry> tiles = new ConcurrentHashMap<>();
+    /** Advances once per insert; an entry is stamped with it when used */
+    private final AtomicLong clock = new AtomicLong();
+
+    public DemTileCache(
+            @Value("${app.elevation.dem-dir:}") String dir,
+            @Value("${app.elevation.max-mapped-tiles:64}") int maxTiles
+    ) {
+        this.dir = dir.isBlank() ? null : Path.of(dir);
+        this.maxTiles = Math.max(1, maxTiles);
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    /** Bilinearly interpolated elevation in meters, or NaN where there is no data. */
+    public double elevation(double lat, double lng) {
+        int tLat = (int) Math.floor(lat);
+        int tLng = (int) Math.floor(lng);
+        Tile tile = tile(tLat, tLng);
+        if (tile.data == null) return Double.NaN;
+
+        int n = tile.size;
+        double row = (tLat + 1 - lat) * (n - 1);
+        double col = (lng - tLng) * (n - 1);
+        int r0 = Math.min((int) row, n - 2);
+        int c0 = Math.min((int) col, n - 2);
+        double fr = row - r0, fc = col - c0;
+
+        double v00 = tile.sample(r0, c0), v01 = tile.sample(r0, c0 + 1);
+        double v10 = tile.sample(r0 + 1, c0), v11 = tile.sample(r0 + 1, c0 + 1);
+
+        double w00 = (1 - fr) * (1 - fc), w01 = (1 - fr) * fc, w10 = fr * (1 - fc), w11 = fr * fc;
+        double sum = 0, weight = 0;
+        // Voids are skipped and the remaining weights renormalised
+        if (!Double.isNaN(v00)) { sum += v00 * w00; weight += w00; }
+        if (!Double.isNaN(v01)) { sum += v01 * w01; weight += w01; }
+        if (!Double.isNaN(v10)) { sum += v10 * w10; weight += w10; }
+        if (!Double.isNaN(v11)) { sum += v11 * w11; weight += w11; }
+        return weight > 0 ? sum / weight : Double.NaN;
+    }
+
+    private Tile tile(int lat, int lng) {
+        if (dir == null) return MISSING;
+        int key = (lat + 90) * 360 + (lng + 180);
+        Entry e = tiles.get(key);
+        if (e == null) e = insert(key, lat, lng);
+        long now = clock.get();
+        if (e.lastUsed != now) e.lastUsed = now;
+        return e.tile;
+    }
+
+    private synchronized Entry insert(int key, int lat, int lng) {
+        Entry e = tiles.get(key);
+        if (e != null) return e;
+        if (tiles.size() >= maxTiles) {
+            Map.Entry<Integer, Entry> eldest = null;
+            for (Map.Entry<Integer, Entry> c : tiles.entrySet()) {
+                if (eldest == null || c.getValue().lastUsed < eldest.getValue().lastUsed) eldest = c;
+            }
+            if (eldest != null) tiles.remove(eldest.getKey());
+        }
+        e = new Entry(load(lat, lng), clock.incrementAndGet());
+        tiles.put(key, e);
+        return e;
+    }
+
+    private Tile load(int lat, int lng) {
+        Path file = dir.resolve(tileName(lat, lng));
+        if (!Files.isReadable(file)) return MISSING;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = ch.size();
+            int n = (int) Math.round(Math.sqrt(bytes / 2.0));
+            if ((long) n * n * 2 != bytes) {
+                log.warn("Ignoring {}: {} bytes is not a square int16 grid", file, bytes);
+                return MISSING;
+            }
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, bytes).order(ByteOrder.BIG_ENDIAN);
+            return new Tile(buf, n);
+        } catch (IOException ex) {
+            log.warn("Cannot map DEM tile {}: {}", file, ex.getMessage());
+            return MISSING;
+        }
+    }
+
+    static String tileName(int lat, int lng) {
+        return String.format("%s%02d%s%03d.hgt",
+                lat >= 0 ? "N" : "S", Math.abs(lat),
+                lng >= 0 ? "E" : "W", Math.abs(lng));
+    }
+
+    private static final class Entry {
+        final Tile tile;
+        volatile long lastUsed;
+
+        Entry(Tile tile, long lastUsed) {
+            this.tile = tile;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private record Tile(ByteBuffer data, int size) {
+        double sample(int row, int col) {
+            short v = data.getShort((row * size + col) * 2);
+            return v == VOID ? Double.NaN : v;
+        }
+    }
+}
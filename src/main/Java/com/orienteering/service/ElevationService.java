@@ -0,0 +1,128 @@
+package com.orienteering.service;
+
+import com.orienteering.domain.Route;
+import com.orienteering.geo.GeoMath;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.LineString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Climb statistics and a sampled elevation profile for a route line, using
+ * {@link DemTileCache}. Profiles are stored on the route as packed
+ * (distance, elevation) float pairs.
+ */
+@Service
+public class ElevationService {
+
+    private final DemTileCache dem;
+    private final int profileSamples;
+    private final double hysteresisMeters;
+
+    public ElevationService(
+            DemTileCache dem,
+            @Value("${app.elevation.profile-samples:200}") int profileSamples,
+            @Value("${app.elevation.hysteresis-meters:2}") double hysteresisMeters
+    ) {
+        this.dem = dem;
+        this.profileSamples = profileSamples;
+        this.hysteresisMeters = hysteresisMeters;
+    }
+
+    /** Recomputes (or clears) ascent, descent and profile from the route's geometry. */
+    public void apply(Route r) {
+        LineString ls = r.getGeom();
+        if (ls == null || ls.getNumPoints() < 2 || !dem.isEnabled()) {
+            r.setAscentMeters(null);
+            r.setDescentMeters(null);
+            r.setElevationProfile(null);
+            return;
+        }
+
+        CoordinateSequence cs = ls.getCoordinateSequence();
+        int n = cs.size();
+        double[] cumulative = new double[n];
+        double[] elevation = new double[n];
+
+        double ascent = 0, descent = 0;
+        double anchor = Double.NaN;
+        for (int i = 0; i < n; i++) {
+            double lng = cs.getX(i), lat = cs.getY(i);
+            if (i > 0) {
+                cumulative[i] = cumulative[i - 1] + GeoMath.haversine(cs.getY(i - 1), cs.getX(i - 1), lat, lng);
+            }
+            double e = dem.elevation(lat, lng);
+            elevation[i] = e;
+            if (Double.isNaN(e)) continue;
+            if (Double.isNaN(anchor)) {
+                anchor = e;
+            } else if (e - anchor >= hysteresisMeters) {
+                // Small wiggles (DEM noise) are ignored until they add up to the threshold
+                ascent += e - anchor;
+                anchor = e;
+            } else if (anchor - e >= hysteresisMeters) {
+                descent += anchor - e;
+                anchor = e;
+            }
+        }
+
+        if (Double.isNaN(anchor)) {
+            // Route lies entirely outside the tiles we have
+            r.setAscentMeters(null);
+            r.setDescentMeters(null);
+            r.setElevationProfile(null);
+            return;
+        }
+        r.setAscentMeters((int) Math.round(ascent));
+        r.setDescentMeters((int) Math.round(descent));
+        fillGaps(elevation);
+        r.setElevationProfile(sample(cumulative, elevation));
+    }
+
+    /** Replaces voids with the nearest known value (there is at least one). */
+    private static void fillGaps(double[] elevation) {
+        double last = Double.NaN;
+        for (int i = 0; i < elevation.length; i++) {
+            if (Double.isNaN(elevation[i])) elevation[i] = last;
+            else last = elevation[i];
+        }
+        last = Double.NaN;
+        for (int i = elevation.length - 1; i >= 0; i--) {
+            if (Double.isNaN(elevation[i])) elevation[i] = last;
+            else last = elevation[i];
+        }
+    }
+
+    /** Evenly spaced samples along the line, linearly interpolated between vertices. */
+    private byte[] sample(double[] cumulative, double[] elevation) {
+        int n = cumulative.length;
+        double total = cumulative[n - 1];
+        int samples = Math.max(2, Math.min(profileSamples, n * 4));
+        ByteBuffer buf = ByteBuffer.allocate(samples * 8);
+        int seg = 0;
+        for (int s = 0; s < samples; s++) {
+            double d = total * s / (samples - 1);
+            while (seg < n - 2 && cumulative[seg + 1] < d) seg++;
+            double span = cumulative[seg + 1] - cumulative[seg];
+            double f = span > 0 ? (d - cumulative[seg]) / span : 0;
+            double e = elevation[seg] + (elevation[seg + 1] - elevation[seg]) * f;
+            buf.putFloat((float) d).putFloat((float) e);
+        }
+        return buf.array();
+    }
+
+    /** Splits a stored profile into parallel distance / elevation arrays. */
+    public static float[][] decodeProfile(byte[] packed) {
+        if (packed == null) return new float[][]{new float[0], new float[0]};
+        ByteBuffer buf = ByteBuffer.wrap(packed);
+        int n = packed.length / 8;
+        float[] distances = new float[n], elevations = new float[n];
+        for (int i = 0; i < n; i++) {
+            distances[i] = buf.getFloat();
+            elevations[i] = buf.getFloat();
+        }
+        return new float[][]{distances, elevations};
+    }
+}
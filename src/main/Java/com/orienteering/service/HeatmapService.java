@@ -0,0 +1,442 @@
+package com.orienteering.service;
+
+import com.orienteering.domain.Route;
+import com.orienteering.geo.GeoMath;
+import com.orienteering.repo.RouteRepo;
+import jakarta.annotation.PreDestroy;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.LineString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * "Popular areas" raster of public routes. For every zoom level the world is split
+ * into Web Mercator tiles of CELLS x CELLS int counters; a route adds 1 to each cell
+ * it crosses (once per cell). The grid is snapshotted to disk for fast restarts.
+ * <p>
+ * One worker thread owns all writes: route changes are queued to it after commit, so
+ * the zoom levels are never rasterised on a request thread, and a rebuild fills a fresh
+ * {@link Grid} off to the side while readers keep the current one, then swaps it in.
+ * The grid remembers the version it counted for each route, which makes applying an
+ * event idempotent: one the rebuild scan already saw (same or newer version) is
+ * skipped, and only one with a newer version moves counts.
+ * Writes on other nodes arrive without geometry (see {@link RouteInvalidationBus}).
+ * A route this grid does not count yet (created or made public there) is read back
+ * and added. A counted one that was edited, hidden or deleted there cannot be
+ * subtracted without its old geometry, so the grid is marked stale and rebuilt, off
+ * to the side, at most once per app.heatmap.remote-rebuild-ms.
+ */
+@Service
+public class HeatmapService {
+
+    private static final Logger log = LoggerFactory.getLogger(HeatmapService.class);
+
+    public static final int CELLS = 64;
+    private static final int SHIFT = 6; // log2(CELLS)
+    private static final int MAGIC = 0x484D4732; // "HMG2"
+
+    private final RouteRepo routeRepo;
+    private final int minZoom;
+    private final int maxZoom;
+    private final Path snapshot;
+    private final int pngSaturation;
+    private final ExecutorService worker;
+
+    /** Replaced wholesale by a rebuild; only the worker thread writes to it. */
+    private volatile Grid grid;
+    private volatile boolean dirty;
+    private volatile boolean remoteStale;
+
+    public HeatmapService(
+            RouteRepo routeRepo,
+            @Value("${app.heatmap.min-zoom:2}") int minZoom,
+            @Value("${app.heatmap.max-zoom:14}") int maxZoom,
+            @Value("${app.heatmap.snapshot:}") String snapshot,
+            @Value("${app.heatmap.png-saturation:50}") int pngSaturation
+    ) {
+        this.routeRepo = routeRepo;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.snapshot = snapshot.isBlank() ? null : Path.of(snapshot);
+        this.pngSaturation = Math.max(1, pngSaturation);
+        this.grid = new Grid();
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "heatmap");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Per zoom: tile key (x << 32 | y) -> counts, row-major; plus route id -> counted version */
+    private final class Grid {
+        final List<ConcurrentHashMap<Long, int[]>> levels = new ArrayList<>();
+        final Map<Long, Long> counted = new HashMap<>();
+
+        Grid() {
+            for (int z = minZoom; z <= maxZoom; z++) levels.add(new ConcurrentHashMap<>());
+        }
+
+        void add(long id, long version, LineString ls) {
+            apply(ls, +1);
+            counted.put(id, version);
+        }
+
+        void apply(LineString ls, int delta) {
+            for (int z = minZoom; z <= maxZoom; z++) {
+                long[] cells = rasterize(ls, z);
+                ConcurrentHashMap<Long, int[]> level = levels.get(z - minZoom);
+                for (long c : cells) {
+                    int cx = (int) (c >>> 32), cy = (int) c;
+                    long tileKey = ((long) (cx >>> SHIFT) << 32) | (cy >>> SHIFT);
+                    int[] counts = level.computeIfAbsent(tileKey, k -> new int[CELLS * CELLS]);
+                    counts[((cy & (CELLS - 1)) << SHIFT) | (cx & (CELLS - 1))] += delta;
+                }
+            }
+        }
+
+        /** [count, sum(id), sum(version)], comparable with {@link RouteRepo#publicGeometryChecksum} */
+        long[] checksum() {
+            long ids = 0, versions = 0;
+            for (Map.Entry<Long, Long> e : counted.entrySet()) {
+                ids += e.getKey();
+                versions += e.getValue();
+            }
+            return new long[]{counted.size(), ids, versions};
+        }
+    }
+
+    /* ------------ incremental maintenance ------------ */
+
+    @TransactionalEventListener
+    public void onRouteChanged(RouteChangedEvent e) {
+        // Metadata-only changes of public routes too: they move the version the grid tracks
+        if (!e.wasPublic() && !e.isPublic()) return;
+        worker.execute(() -> applyChange(grid, e));
+    }
+
+    /** Worker thread only. Skips what the grid already reflects, by route version. */
+    private void applyChange(Grid g, RouteChangedEvent e) {
+        Long have = g.counted.get(e.routeId());
+        if (have != null && have >= e.version() && e.kind() != RouteChangedEvent.Kind.DELETED) return;
+        boolean before = e.wasPublic() && e.oldGeom() != null && have != null;
+        boolean after = e.isPublic() && e.newGeom() != null;
+        if (have != null && !before) {
+            // Counted, and the event carries no geometry to take away: only track the version
+            if (e.isPublic()) g.counted.put(e.routeId(), e.version());
+            return;
+        }
+        if (before && after && e.oldGeom().equalsExact(e.newGeom())) {
+            g.counted.put(e.routeId(), e.version());
+            return;
+        }
+        if (before) {
+            g.apply(e.oldGeom(), -1);
+            g.counted.remove(e.routeId());
+        }
+        if (after) g.add(e.routeId(), e.version(), e.newGeom());
+        dirty = true;
+    }
+
+    @EventListener
+    public void onRemoteChanges(RemoteRouteChangesEvent e) {
+        List<RemoteRouteChangesEvent.Change> touched = e.changes().stream()
+                .filter(c -> c.wasPublic() || c.isPublic())
+                .toList();
+        if (!touched.isEmpty()) worker.execute(() -> applyRemote(grid, touched));
+    }
+
+    /** Worker thread only. Adds routes that became visible; anything else counted needs a rebuild. */
+    private void applyRemote(Grid g, List<RemoteRouteChangesEvent.Change> changes) {
+        List<Long> added = new ArrayList<>();
+        for (RemoteRouteChangesEvent.Change c : changes) {
+            Long have = g.counted.get(c.routeId());
+            if (have != null && have >= c.version()) continue;
+            if (!c.affectsPublicGeometry()) {
+                // Metadata only: keep the tracked version in line with the database
+                if (have != null) g.counted.put(c.routeId(), c.version());
+            } else if (have == null) {
+                if (c.isPublic()) added.add(c.routeId());
+            } else {
+                remoteStale = true;
+            }
+        }
+        if (added.isEmpty()) return;
+        try {
+            for (Route r : routeRepo.findAllById(added)) {
+                if (!r.isPublic() || r.getGeom() == null || g.counted.containsKey(r.getId())) continue;
+                g.add(r.getId(), r.getVersion(), r.getGeom());
+                dirty = true;
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not read {} remotely changed routes for the heatmap: {}", added.size(), ex.toString());
+            remoteStale = true;
+        }
+    }
+
+    @EventListener
+    public void onResync(RouteCacheResyncEvent e) {
+        remoteStale = true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.heatmap.remote-rebuild-ms:60000}")
+    public void rebuildIfRemoteStale() {
+        if (!remoteStale) return;
+        remoteStale = false;
+        rebuild();
+    }
+
+    /** Distinct global cells (x << 32 | y) crossed by the line at zoom z. */
+    static long[] rasterize(LineString ls, int z) {
+        CoordinateSequence cs = ls.getCoordinateSequence();
+        double n = (double) (1L << (z + SHIFT));
+        long[] out = new long[Math.max(16, cs.size() * 2)];
+        int size = 0;
+        double px = mercX(cs.getX(0), n), py = mercY(cs.getY(0), n);
+        int cx = cell(px, n), cy = cell(py, n);
+        out[size++] = pack(cx, cy);
+        for (int i = 1; i < cs.size(); i++) {
+            double qx = mercX(cs.getX(i), n), qy = mercY(cs.getY(i), n);
+            int ex = cell(qx, n), ey = cell(qy, n);
+            // Grid traversal (Amanatides & Woo) from (px,py) to (qx,qy)
+            double dx = qx - px, dy = qy - py;
+            int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1;
+            double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+            double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+            double tMaxX = dx == 0 ? Double.POSITIVE_INFINITY
+                    : ((stepX > 0 ? Math.floor(px) + 1 - px : px - Math.floor(px)) * tDeltaX);
+            double tMaxY = dy == 0 ? Double.POSITIVE_INFINITY
+                    : ((stepY > 0 ? Math.floor(py) + 1 - py : py - Math.floor(py)) * tDeltaY);
+            int steps = Math.abs(ex - cx) + Math.abs(ey - cy);
+            for (int s = 0; s < steps; s++) {
+                if (tMaxX < tMaxY) { cx += stepX; tMaxX += tDeltaX; }
+                else { cy += stepY; tMaxY += tDeltaY; }
+                if (size == out.length) out = Arrays.copyOf(out, size * 2);
+                out[size++] = pack(cx, cy);
+            }
+            cx = ex; cy = ey; px = qx; py = qy;
+        }
+        Arrays.sort(out, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || out[i] != out[i - 1]) out[distinct++] = out[i];
+        }
+        return Arrays.copyOf(out, distinct);
+    }
+
+    private static double mercX(double lng, double n) {
+        return GeoMath.mercatorX(lng) * n;
+    }
+
+    private static double mercY(double lat, double n) {
+        return GeoMath.mercatorY(lat) * n;
+    }
+
+    private static int cell(double v, double n) {
+        return (int) Math.max(0, Math.min(n - 1, Math.floor(v)));
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    /* ------------ serving ------------ */
+
+    /** Counts for one tile (row-major, CELLS x CELLS), or null when nothing is there. */
+    public int[] tile(int z, int x, int y) {
+        if (z < minZoom || z > maxZoom) {
+            throw new IllegalArgumentException("Zoom must be between " + minZoom + " and " + maxZoom);
+        }
+        int[] counts = grid.levels.get(z - minZoom).get(((long) x << 32) | (y & 0xffffffffL));
+        return counts == null ? null : counts.clone();
+    }
+
+    /** 256x256 PNG, each cell a 4x4 block shaded by log-scaled count. */
+    public byte[] tilePng(int z, int x, int y) {
+        int[] counts = tile(z, x, y);
+        int scale = 256 / CELLS;
+        BufferedImage img = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB);
+        if (counts != null) {
+            double max = Math.log1p(pngSaturation);
+            for (int cy = 0; cy < CELLS; cy++) {
+                for (int cx = 0; cx < CELLS; cx++) {
+                    int v = counts[cy * CELLS + cx];
+                    if (v <= 0) continue;
+                    double t = Math.min(1, Math.log1p(v) / max);
+                    int argb = color(t);
+                    for (int py = 0; py < scale; py++) {
+                        for (int px = 0; px < scale; px++) {
+                            img.setRGB(cx * scale + px, cy * scale + py, argb);
+                        }
+                    }
+                }
+            }
+        }
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            ImageIO.write(img, "png", out);
+            return out.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** Blue (sparse) to red (dense), increasingly opaque. */
+    private static int color(double t) {
+        int a = (int) (80 + 175 * t);
+        int r = (int) (255 * t);
+        int b = (int) (255 * (1 - t));
+        int g = (int) (96 * (1 - Math.abs(2 * t - 1)));
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /* ------------ startup, snapshot, rebuild ------------ */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        worker.execute(() -> {
+            Grid loaded = loadSnapshot();
+            if (loaded != null) {
+                long[] expected = checksum();
+                if (Arrays.equals(loaded.checksum(), expected)) {
+                    grid = loaded;
+                    log.info("Heatmap loaded from snapshot ({} routes)", loaded.counted.size());
+                    return;
+                }
+                log.info("Heatmap snapshot is out of date, rebuilding");
+            }
+            doRebuild();
+        });
+    }
+
+    /** Recomputes every level from the public routes in the database, on the worker. */
+    public void rebuild() {
+        worker.execute(this::doRebuild);
+    }
+
+    /**
+     * Worker thread only. Events committed during the scan queue up behind it and are
+     * applied to the fresh grid afterwards; the versions sort out which ones it saw.
+     */
+    private void doRebuild() {
+        long start = System.nanoTime();
+        Grid fresh = new Grid();
+        long lastId = 0;
+        try {
+            while (true) {
+                List<Route> batch = routeRepo.findTop500ByIsPublicTrueAndGeomIsNotNullAndIdGreaterThanOrderByIdAsc(lastId);
+                if (batch.isEmpty()) break;
+                for (Route r : batch) {
+                    fresh.add(r.getId(), r.getVersion(), r.getGeom());
+                    lastId = r.getId();
+                }
+            }
+        } catch (RuntimeException ex) {
+            // Keep serving the old grid; the next remote change or resync tries again
+            log.warn("Heatmap rebuild stopped after route {}: {}", lastId, ex.toString());
+            remoteStale = true;
+            return;
+        }
+        grid = fresh;
+        dirty = true;
+        log.info("Heatmap rebuilt from {} routes in {} ms", fresh.counted.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long[] checksum() {
+        Object[] row = routeRepo.publicGeometryChecksum().get(0);
+        return new long[]{((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue()};
+    }
+
+    @Scheduled(fixedDelayString = "${app.heatmap.snapshot-interval-ms:300000}")
+    public void periodicSnapshot() {
+        if (dirty) worker.execute(this::writeSnapshot);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        worker.execute(this::writeSnapshot);
+        worker.shutdown();
+        if (!worker.awaitTermination(30, TimeUnit.SECONDS)) worker.shutdownNow();
+    }
+
+    /** Worker thread only, so the grid does not change while it is written. */
+    private void writeSnapshot() {
+        if (snapshot == null) return;
+        Grid g = grid;
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp)), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(minZoom);
+            out.writeInt(maxZoom);
+            out.writeInt(g.counted.size());
+            for (Map.Entry<Long, Long> e : g.counted.entrySet()) {
+                out.writeLong(e.getKey());
+                out.writeLong(e.getValue());
+            }
+            for (ConcurrentHashMap<Long, int[]> level : g.levels) {
+                out.writeInt(level.size());
+                for (var e : level.entrySet()) {
+                    out.writeLong(e.getKey());
+                    for (int v : e.getValue()) out.writeInt(v);
+                }
+            }
+            dirty = false;
+        } catch (IOException ex) {
+            log.warn("Could not write heatmap snapshot {}: {}", snapshot, ex.getMessage());
+            return;
+        }
+        try {
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Could not replace heatmap snapshot {}: {}", snapshot, ex.getMessage());
+        }
+    }
+
+    /** A grid read from the snapshot, or null; the caller still has to check it against the database. */
+    private Grid loadSnapshot() {
+        if (snapshot == null || !Files.exists(snapshot)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(snapshot)), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != minZoom || in.readInt() != maxZoom) return null;
+            Grid g = new Grid();
+            int routes = in.readInt();
+            for (int i = 0; i < routes; i++) g.counted.put(in.readLong(), in.readLong());
+            for (ConcurrentHashMap<Long, int[]> level : g.levels) {
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) {
+                    long key = in.readLong();
+                    int[] counts = new int[CELLS * CELLS];
+                    for (int k = 0; k < counts.length; k++) counts[k] = in.readInt();
+                    level.put(key, counts);
+                }
+            }
+            return g;
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable heatmap snapshot {}: {}", snapshot, ex.getMessage());
+            return null;
+        }
+    }
+}
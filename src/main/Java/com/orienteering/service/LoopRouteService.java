@@ -0,0 +1,301 @@
+package com.orienteering.service;
+
+import com.orienteering.dto.LoopRouteRes;
+import com.orienteering.geo.GeoMath;
+import com.orienteering.geo.OsmTrailGraphLoader;
+import com.orienteering.geo.TrailGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Generates loop routes of a target length over the local trail graph. Each candidate
+ * is a triangle start → A → B → start at a different bearing, with every leg an A*
+ * search; edges already used by earlier legs cost double so loops avoid out-and-back.
+ */
+@Service
+public class LoopRouteService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoopRouteService.class);
+
+    /** Typical ratio of trail distance to straight-line distance. */
+    private static final double DETOUR = 1.3;
+    private static final double SNAP_METERS = 500;
+    private static final float REUSE_PENALTY = 2f;
+
+    private final Path pbf;
+    private final Path snapshot;
+    private final int bearings;
+    private final int concurrentSearches;
+    private final long queueTimeoutMs;
+
+    private volatile TrailGraph graph;
+    private volatile BlockingQueue<SearchState> states;
+
+    public LoopRouteService(
+            @Value("${app.routing.osm-pbf:}") String pbf,
+            @Value("${app.routing.snapshot:}") String snapshot,
+            @Value("${app.routing.bearings:8}") int bearings,
+            @Value("${app.routing.concurrent-searches:2}") int concurrentSearches,
+            @Value("${app.routing.queue-timeout-ms:2000}") long queueTimeoutMs
+    ) {
+        this.pbf = pbf.isBlank() ? null : Path.of(pbf);
+        this.snapshot = snapshot.isBlank() ? null : Path.of(snapshot);
+        this.bearings = bearings;
+        this.concurrentSearches = concurrentSearches;
+        this.queueTimeoutMs = queueTimeoutMs;
+    }
+
+    /** Loads in the background so a large extract does not hold up startup. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadGraph() {
+        if (pbf == null && snapshot == null) return;
+        Thread t = new Thread(this::doLoad, "trail-graph-loader");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void doLoad() {
+        long start = System.nanoTime();
+        try {
+            TrailGraph g;
+            boolean snapshotFresh = snapshot != null && Files.exists(snapshot)
+                    && (pbf == null || !Files.exists(pbf)
+                        || Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(pbf)) >= 0);
+            if (snapshotFresh) {
+                g = TrailGraph.load(snapshot);
+            } else {
+                g = OsmTrailGraphLoader.load(pbf);
+                if (snapshot != null) g.save(snapshot);
+            }
+            BlockingQueue<SearchState> pool = new ArrayBlockingQueue<>(concurrentSearches);
+            for (int i = 0; i < concurrentSearches; i++) pool.add(new SearchState(g.nodeCount(), g.edgeCount()));
+            this.states = pool;
+            this.graph = g;
+            log.info("Trail graph ready: {} nodes, {} edges in {} ms ({})", g.nodeCount(), g.edgeCount(),
+                    (System.nanoTime() - start) / 1_000_000, snapshotFresh ? "snapshot" : "pbf");
+        } catch (Exception ex) {
+            log.error("Could not load trail graph", ex);
+        }
+    }
+
+    public List<LoopRouteRes> loops(double lat, double lng, int targetMeters, int count) {
+        TrailGraph g = graph;
+        if (g == null) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Routing graph not loaded");
+        }
+        if (targetMeters < 500 || targetMeters > 100_000) {
+            throw new IllegalArgumentException("lengthMeters must be between 500 and 100000");
+        }
+        int start = g.nearestNode(lat, lng, SNAP_METERS);
+        if (start < 0) {
+            throw new IllegalArgumentException("No trail within " + (int) SNAP_METERS + " m of the start point");
+        }
+
+        SearchState state;
+        try {
+            // Waits behind at most a few searches, then sheds instead of piling up threads
+            state = states.poll(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Interrupted");
+        }
+        if (state == null) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Loop search busy, try again");
+        }
+        try {
+            List<Candidate> candidates = new ArrayList<>();
+            double side = targetMeters / 3.0 / DETOUR;
+            double startLat = g.lat(start), startLon = g.lon(start);
+            for (int i = 0; i < bearings; i++) {
+                double bearing = 360.0 * i / bearings;
+                int a = g.nearestNode(destLat(startLat, bearing, side), destLon(startLat, startLon, bearing, side), SNAP_METERS);
+                double b2 = bearing + 60;
+                int b = g.nearestNode(destLat(startLat, b2, side), destLon(startLat, startLon, b2, side), SNAP_METERS);
+                if (a < 0 || b < 0 || a == b || a == start || b == start) continue;
+
+                state.usedEdges.clear();
+                IntList path = new IntList();
+                path.add(start);
+                float budget = targetMeters * 2f;
+                float total = 0;
+                boolean ok = true;
+                for (int[] leg : new int[][]{{start, a}, {a, b}, {b, start}}) {
+                    float len = state.search(g, leg[0], leg[1], budget - total, path);
+                    if (len < 0) { ok = false; break; }
+                    total += len;
+                }
+                if (ok) candidates.add(new Candidate(path.toArray(), total));
+            }
+
+            candidates.sort(Comparator.comparingDouble(c -> Math.abs(c.meters - targetMeters)));
+            List<LoopRouteRes> out = new ArrayList<>();
+            for (Candidate c : candidates) {
+                if (out.size() >= count) break;
+                out.add(new LoopRouteRes(Math.round(c.meters), toWkt(g, c.nodes)));
+            }
+            return out;
+        } finally {
+            states.add(state);
+        }
+    }
+
+    private static String toWkt(TrailGraph g, int[] nodes) {
+        StringBuilder sb = new StringBuilder(nodes.length * 24).append("LINESTRING(");
+        for (int i = 0; i < nodes.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append((float) g.lon(nodes[i])).append(' ').append((float) g.lat(nodes[i]));
+        }
+        return sb.append(')').toString();
+    }
+
+    private static double destLat(double lat, double bearingDeg, double meters) {
+        return lat + Math.cos(Math.toRadians(bearingDeg)) * meters / GeoMath.METERS_PER_DEGREE;
+    }
+
+    private static double destLon(double lat, double lon, double bearingDeg, double meters) {
+        return lon + Math.sin(Math.toRadians(bearingDeg)) * meters
+                / (GeoMath.METERS_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+    }
+
+    private record Candidate(int[] nodes, float meters) {}
+
+    /**
+     * Per-search scratch arrays sized to the graph, reused between requests. A stamp
+     * per node marks which entries belong to the current search, so nothing is cleared.
+     */
+    private static final class SearchState {
+        final float[] dist;
+        final int[] parent;
+        final int[] parentEdge;
+        final int[] stamp;
+        final BitSet usedEdges;
+        int generation;
+        final MinHeap heap = new MinHeap();
+
+        SearchState(int nodes, int edges) {
+            dist = new float[nodes];
+            parent = new int[nodes];
+            parentEdge = new int[nodes];
+            stamp = new int[nodes];
+            usedEdges = new BitSet(edges);
+        }
+
+        /** A* from → to; appends the path (excluding {@code from}) and returns its true length, or -1. */
+        float search(TrailGraph g, int from, int to, float maxCost, IntList path) {
+            int gen = ++generation;
+            heap.clear();
+            double toLat = g.lat(to), toLon = g.lon(to);
+
+            stamp[from] = gen;
+            dist[from] = 0;
+            parent[from] = -1;
+            heap.push(from, (float) GeoMath.haversine(g.lat(from), g.lon(from), toLat, toLon));
+
+            while (!heap.isEmpty()) {
+                float f = heap.peekKey();
+                int u = heap.pop();
+                if (u == to) break;
+                float du = dist[u];
+                float h = (float) GeoMath.haversine(g.lat(u), g.lon(u), toLat, toLon);
+                if (f > du + h + 0.01f) continue; // stale heap entry
+                if (du > maxCost) return -1;
+                for (int e = g.firstEdge(u), end = g.endEdge(u); e < end; e++) {
+                    int v = g.target(e);
+                    float w = g.length(e) * (usedEdges.get(e) ? REUSE_PENALTY : 1f);
+                    float dv = du + w;
+                    if (stamp[v] != gen || dv < dist[v]) {
+                        stamp[v] = gen;
+                        dist[v] = dv;
+                        parent[v] = u;
+                        parentEdge[v] = e;
+                        heap.push(v, dv + (float) GeoMath.haversine(g.lat(v), g.lon(v), toLat, toLon));
+                    }
+                }
+            }
+            if (stamp[to] != gen) return -1;
+
+            // Walk back, marking each edge in both directions (separate CSR entries)
+            IntList leg = new IntList();
+            float length = 0;
+            for (int v = to; v != from; v = parent[v]) {
+                leg.add(v);
+                usedEdges.set(parentEdge[v]);
+                for (int e = g.firstEdge(v), end = g.endEdge(v); e < end; e++) {
+                    if (g.target(e) == parent[v]) usedEdges.set(e);
+                }
+                length += g.length(parentEdge[v]);
+            }
+            for (int i = leg.size - 1; i >= 0; i--) path.add(leg.data[i]);
+            return length;
+        }
+    }
+
+    /** Binary min-heap of (key, node) in parallel primitive arrays. */
+    private static final class MinHeap {
+        float[] keys = new float[1024];
+        int[] nodes = new int[1024];
+        int size;
+
+        void clear() { size = 0; }
+        boolean isEmpty() { return size == 0; }
+        float peekKey() { return keys[0]; }
+
+        void push(int node, float key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                if (keys[p] <= key) break;
+                keys[i] = keys[p]; nodes[i] = nodes[p];
+                i = p;
+            }
+            keys[i] = key; nodes[i] = node;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            float key = keys[--size];
+            int node = nodes[size];
+            int i = 0;
+            while (true) {
+                int c = 2 * i + 1;
+                if (c >= size) break;
+                if (c + 1 < size && keys[c + 1] < keys[c]) c++;
+                if (keys[c] >= key) break;
+                keys[i] = keys[c]; nodes[i] = nodes[c];
+                i = c;
+            }
+            keys[i] = key; nodes[i] = node;
+            return top;
+        }
+    }
+
+    private static final class IntList {
+        int[] data = new int[256];
+        int size;
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        int[] toArray() { return Arrays.copyOf(data, size); }
+    }
+}
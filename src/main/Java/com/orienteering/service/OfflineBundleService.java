@@ -0,0 +1,305 @@
+package com.orienteering.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orienteering.dto.BundleReq;
+import com.orienteering.dto.BundleRes;
+import com.orienteering.repo.CheckpointRepo;
+import com.orienteering.repo.RouteRepo;
+import com.orienteering.repo.RouteView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Offline bundles: every public route (read-model geometry plus checkpoints) in a
+ * bbox, written once as gzipped JSON to app.bundles.dir. The bundle id hashes the
+ * box and the (id, version) of each route in it, so a bundle file never changes;
+ * any route edit yields a new id. Downloads then only read that file.
+ */
+@Service
+public class OfflineBundleService {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineBundleService.class);
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{32}");
+    private static final int CHUNK = 200;
+    private static final double GRID = 1e-3; // boxes are snapped outwards so nearby requests share bundles
+
+    private final RouteRepo routeRepo;
+    private final CheckpointRepo checkpointRepo;
+    private final ObjectMapper mapper;
+    private final Path dir;
+    private final int maxRoutes;
+    private final double maxAreaDeg2;
+    private final long retentionHours;
+    private final ThreadPoolExecutor executor;
+
+    /** Builds in progress, and failed ones until they are requested again */
+    private final ConcurrentHashMap<String, Build> builds = new ConcurrentHashMap<>();
+
+    private record Build(CompletableFuture<Void> future, int routeCount) {}
+
+    public OfflineBundleService(
+            RouteRepo routeRepo,
+            CheckpointRepo checkpointRepo,
+            ObjectMapper mapper,
+            @Value("${app.bundles.dir:${java.io.tmpdir}/orienteering-bundles}") String dir,
+            @Value("${app.bundles.max-routes:2000}") int maxRoutes,
+            @Value("${app.bundles.max-area-deg2:4}") double maxAreaDeg2,
+            @Value("${app.bundles.retention-hours:72}") long retentionHours,
+            @Value("${app.bundles.threads:1}") int threads,
+            @Value("${app.bundles.queue-capacity:20}") int queueCapacity
+    ) throws IOException {
+        this.routeRepo = routeRepo;
+        this.checkpointRepo = checkpointRepo;
+        this.mapper = mapper;
+        this.dir = Files.createDirectories(Path.of(dir));
+        this.maxRoutes = maxRoutes;
+        this.maxAreaDeg2 = maxAreaDeg2;
+        this.retentionHours = retentionHours;
+        int n = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "bundle-builder");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** Returns the bundle for the area, starting a build when it does not exist yet. */
+    public BundleRes request(BundleReq req) {
+        double minLng = Math.floor(req.getMinLng() / GRID) * GRID;
+        double minLat = Math.floor(req.getMinLat() / GRID) * GRID;
+        double maxLng = Math.ceil(req.getMaxLng() / GRID) * GRID;
+        double maxLat = Math.ceil(req.getMaxLat() / GRID) * GRID;
+        if (!(minLng >= -180 && maxLng <= 180 && minLat >= -90 && maxLat <= 90 && minLng < maxLng && minLat < maxLat)) {
+            throw new IllegalArgumentException("Invalid bbox");
+        }
+        if ((maxLng - minLng) * (maxLat - minLat) > maxAreaDeg2) {
+            throw new IllegalArgumentException("Area too large for one bundle (max " + maxAreaDeg2 + " square degrees)");
+        }
+
+        List<Object[]> rows = routeRepo.findPublicIdVersionsInBox(minLng, minLat, maxLng, maxLat, maxRoutes + 1);
+        if (rows.size() > maxRoutes) {
+            throw new IllegalArgumentException("More than " + maxRoutes + " routes in this area, choose a smaller one");
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        StringBuilder key = new StringBuilder(32 + rows.size() * 12)
+                .append("v1|").append(minLng).append('|').append(minLat).append('|')
+                .append(maxLng).append('|').append(maxLat);
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            ids.add(id);
+            key.append('|').append(id).append(':').append(((Number) row[1]).longValue());
+        }
+        String bundleId = sha256(key.toString()).substring(0, 32);
+
+        Path file = fileFor(bundleId);
+        if (Files.exists(file)) {
+            touch(file);
+            return ready(bundleId, file, ids.size());
+        }
+
+        double[] bbox = {minLng, minLat, maxLng, maxLat};
+        Build b = builds.compute(bundleId, (k, existing) -> {
+            if (existing != null && !existing.future().isCompletedExceptionally()) return existing;
+            return start(k, bbox, ids);
+        });
+        return toRes(bundleId, b);
+    }
+
+    public BundleRes status(String bundleId) {
+        Path file = fileFor(bundleId);
+        Build b = builds.get(bundleId);
+        if (b != null) return toRes(bundleId, b);
+        if (Files.exists(file)) return ready(bundleId, file, null);
+        throw new NoSuchElementException("Bundle not found: " + bundleId);
+    }
+
+    /** The finished bundle file, for download. */
+    public Path readyFile(String bundleId) {
+        Path file = fileFor(bundleId);
+        if (!Files.exists(file)) throw new NoSuchElementException("Bundle not ready: " + bundleId);
+        return file;
+    }
+
+    private Path fileFor(String bundleId) {
+        if (!ID.matcher(bundleId).matches()) throw new NoSuchElementException("Bundle not found: " + bundleId);
+        return dir.resolve(bundleId + ".json.gz");
+    }
+
+    /* ------------ building ------------ */
+
+    private Build start(String bundleId, double[] bbox, List<Long> ids) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    write(bundleId, bbox, ids);
+                    builds.remove(bundleId);
+                    future.complete(null);
+                } catch (Exception ex) {
+                    log.warn("Bundle {} failed: {}", bundleId, ex.toString());
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Too many bundles being built, please retry shortly");
+        }
+        return new Build(future, ids.size());
+    }
+
+    private void write(String bundleId, double[] bbox, List<Long> ids) throws IOException {
+        Path tmp = Files.createTempFile(dir, bundleId, ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 1 << 16);
+                 JsonGenerator g = mapper.getFactory().createGenerator(out)) {
+                g.writeStartObject();
+                g.writeNumberField("format", 1);
+                g.writeStringField("id", bundleId);
+                g.writeStringField("generatedAt", Instant.now().toString());
+                g.writeFieldName("bbox");
+                g.writeArray(bbox, 0, 4);
+                g.writeArrayFieldStart("routes");
+                for (int from = 0; from < ids.size(); from += CHUNK) {
+                    List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK));
+                    writeRoutes(g, chunk);
+                }
+                g.writeEndArray();
+                g.writeEndObject();
+            }
+            Files.move(tmp, fileFor(bundleId), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void writeRoutes(JsonGenerator g, List<Long> ids) throws IOException {
+        Map<Long, List<Object[]>> checkpoints = new HashMap<>();
+        for (Object[] row : checkpointRepo.findRowsByRouteIds(ids)) {
+            checkpoints.computeIfAbsent(((Number) row[0]).longValue(), k -> new ArrayList<>()).add(row);
+        }
+        List<RouteView> views = new ArrayList<>(routeRepo.findViewsByIdIn(ids));
+        views.sort(Comparator.comparing(RouteView::id));
+        for (RouteView v : views) {
+            if (!v.isPublic() || !v.hasGeom()) continue; // changed since the request
+            g.writeStartObject();
+            g.writeNumberField("id", v.id());
+            g.writeNumberField("version", v.version());
+            g.writeStringField("name", v.name());
+            if (v.distanceMeters() != null) g.writeNumberField("distanceMeters", v.distanceMeters());
+            if (v.ascentMeters() != null) g.writeNumberField("ascentMeters", v.ascentMeters());
+            if (v.descentMeters() != null) g.writeNumberField("descentMeters", v.descentMeters());
+            g.writeFieldName("bbox");
+            g.writeArray(new double[]{v.bboxMinLng(), v.bboxMinLat(), v.bboxMaxLng(), v.bboxMaxLat()}, 0, 4);
+            g.writeStringField("geomWkt", v.geomWkt());
+            g.writeStringField("polyline", v.geomPolyline());
+            g.writeArrayFieldStart("checkpoints");
+            for (Object[] c : checkpoints.getOrDefault(v.id(), List.of())) {
+                g.writeStartObject();
+                g.writeNumberField("orderIndex", ((Number) c[1]).intValue());
+                g.writeNumberField("lat", ((Number) c[2]).doubleValue());
+                g.writeNumberField("lng", ((Number) c[3]).doubleValue());
+                if (c[4] != null) g.writeStringField("description", (String) c[4]);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+    }
+
+    /* ------------ housekeeping ------------ */
+
+    @Scheduled(fixedDelayString = "${app.bundles.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        FileTime cutoff = FileTime.from(Instant.now().minus(retentionHours, ChronoUnit.HOURS));
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().endsWith(".json.gz"))
+                    .filter(p -> {
+                        try {
+                            return Files.getLastModifiedTime(p).compareTo(cutoff) < 0;
+                        } catch (IOException ex) {
+                            return false;
+                        }
+                    })
+                    .forEach(p -> {
+                        try {
+                            Files.deleteIfExists(p);
+                        } catch (IOException ex) {
+                            log.warn("Could not delete expired bundle {}: {}", p, ex.getMessage());
+                        }
+                    });
+        } catch (IOException ex) {
+            log.warn("Could not list bundle dir {}: {}", dir, ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /* ------------ helpers ------------ */
+
+    private BundleRes toRes(String bundleId, Build b) {
+        CompletableFuture<Void> f = b.future();
+        if (!f.isDone()) return new BundleRes(bundleId, "BUILDING", b.routeCount(), null, null, null);
+        if (f.isCompletedExceptionally()) {
+            String error = f.handle((v, ex) -> ex == null ? null : String.valueOf(ex.getMessage())).join();
+            return new BundleRes(bundleId, "FAILED", b.routeCount(), null, null, error);
+        }
+        return ready(bundleId, fileFor(bundleId), b.routeCount());
+    }
+
+    private static BundleRes ready(String bundleId, Path file, Integer routeCount) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new BundleRes(bundleId, "READY", routeCount, size, "/api/bundles/" + bundleId + "/download", null);
+    }
+
+    /** Re-requested bundles stay around for another retention period */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException ignored) {
+            // only affects cleanup timing
+        }
+    }
+
+    private static String sha256(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
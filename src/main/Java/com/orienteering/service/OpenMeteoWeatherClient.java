@@ -0,0 +1,41 @@
+package com.orienteering.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.orienteering.dto.WeatherRes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.Locale;
+
+@Component
+public class OpenMeteoWeatherClient implements WeatherClient {
+
+    private final RestClient client;
+
+    public OpenMeteoWeatherClient(
+            @Value("${app.weather.base-url:https://api.open-meteo.com}") String baseUrl,
+            @Value("${app.weather.timeout-ms:3000}") int timeoutMs
+    ) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(timeoutMs);
+        factory.setReadTimeout(timeoutMs);
+        this.client = RestClient.builder().baseUrl(baseUrl).requestFactory(factory).build();
+    }
+
+    @Override
+    public WeatherRes current(double lat, double lng) {
+        JsonNode json = client.get()
+                .uri("/v1/forecast?latitude={lat}&longitude={lng}&current_weather=true",
+                        String.format(Locale.ROOT, "%.4f", lat), String.format(Locale.ROOT, "%.4f", lng))
+                .retrieve()
+                .body(JsonNode.class);
+        JsonNode cw = json == null ? null : json.get("current_weather");
+        if (cw == null) {
+            throw new IllegalStateException("Upstream weather response has no current_weather");
+        }
+        return new WeatherRes(cw.path("temperature").asDouble(), cw.path("windspeed").asDouble(),
+                cw.path("weathercode").asInt());
+    }
+}
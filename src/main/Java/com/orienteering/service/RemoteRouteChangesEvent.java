@@ -0,0 +1,26 @@
+package com.orienteering.service;
+
+import java.util.List;
+
+/**
+ * Route writes committed by other API nodes, as received from {@link RouteInvalidationBus}
+ * (one event per received batch, at most one change per route). Carries no geometry:
+ * listeners reload whatever they cache for these routes from the database.
+ */
+public record RemoteRouteChangesEvent(List<Change> changes) {
+
+    public record Change(
+            RouteChangedEvent.Kind kind,
+            long routeId,
+            long version,
+            String ownerUsername,
+            boolean wasPublic,
+            boolean isPublic,
+            boolean geometryChanged
+    ) {
+        /** Whether the set of public geometries changed (spatial indexes care) */
+        public boolean affectsPublicGeometry() {
+            return (wasPublic || isPublic) && (wasPublic != isPublic || geometryChanged);
+        }
+    }
+}
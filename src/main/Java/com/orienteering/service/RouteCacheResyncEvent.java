@@ -0,0 +1,8 @@
+package com.orienteering.service;
+
+/**
+ * Remote route changes may have been missed (listener reconnected, or a sequence gap);
+ * in-process route caches should rebuild from the database.
+ */
+public record RouteCacheResyncEvent(String reason) {
+}
@@ -0,0 +1,149 @@
+package com.orienteering.service;
+
+import com.orienteering.domain.RouteChange;
+import com.orienteering.dto.RouteChangeRes;
+import com.orienteering.dto.RouteChangesRes;
+import com.orienteering.dto.RouteRes;
+import com.orienteering.repo.RouteChangeCommands;
+import com.orienteering.repo.RouteChangeRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.springframework.http.HttpStatus.GONE;
+
+/**
+ * Sync feed over route_changes. Every RouteChangedEvent is logged synchronously, so
+ * the row commits or rolls back with the write itself. Readers page by an opaque
+ * "txId.seq" cursor. Each page is collapsed to the latest entry per route and
+ * joined with the routes' current state. Clients upsert CREATED/UPDATED and drop
+ * DELETED. A route the viewer can no longer see comes back as DELETED.
+ * <p>
+ * The log is kept bounded: superseded entries are compacted away after
+ * app.routes.changes-compact-hours, and tombstones expire after
+ * app.routes.changes-retention-days. A cursor older than the newest expired tombstone
+ * gets 410 Gone, and the client syncs again from the start.
+ */
+@Service
+public class RouteChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteChangeFeed.class);
+
+    private final RouteChangeRepo changeRepo;
+    private final RouteChangeCommands commands;
+    private final RouteService routeService;
+    private final int maxLimit;
+    private final int compactHours;
+    private final int retentionDays;
+
+    public RouteChangeFeed(RouteChangeRepo changeRepo,
+                           RouteChangeCommands commands,
+                           RouteService routeService,
+                           @Value("${app.routes.changes-max-limit:200}") int maxLimit,
+                           @Value("${app.routes.batch-max-ids:300}") int batchMaxIds,
+                           @Value("${app.routes.changes-compact-hours:24}") int compactHours,
+                           @Value("${app.routes.changes-retention-days:30}") int retentionDays) {
+        this.changeRepo = changeRepo;
+        this.commands = commands;
+        this.routeService = routeService;
+        // A page resolves its routes in one batch lookup, which takes at most batch-max-ids
+        this.maxLimit = Math.min(maxLimit, batchMaxIds);
+        this.compactHours = Math.max(1, compactHours);
+        this.retentionDays = Math.max(1, retentionDays);
+    }
+
+    @EventListener
+    public void onRouteChanged(RouteChangedEvent e) {
+        RouteChange.Op op = switch (e.kind()) {
+            case CREATED -> RouteChange.Op.CREATED;
+            case UPDATED -> RouteChange.Op.UPDATED;
+            case DELETED -> RouteChange.Op.DELETED;
+        };
+        changeRepo.save(new RouteChange(e.routeId(), e.ownerUsername(), op, e.wasPublic(), e.isPublic(), LocalDateTime.now()));
+    }
+
+    @Transactional(readOnly = true)
+    public RouteChangesRes changesSince(String since, String viewer, int limit) {
+        long[] cursor = parseCursor(since);
+        if (since != null && !since.isBlank()) {
+            commands.horizon().ifPresent(h -> {
+                if (cursor[0] < h[0] || (cursor[0] == h[0] && cursor[1] < h[1])) {
+                    throw new ResponseStatusException(GONE, "Cursor has expired, sync again without since");
+                }
+            });
+        }
+        int n = Math.max(1, Math.min(limit, maxLimit));
+        List<RouteChange> rows = changeRepo.findVisibleAfter(cursor[0], cursor[1], viewer, n + 1);
+        boolean hasMore = rows.size() > n;
+        if (hasMore) rows = rows.subList(0, n);
+        if (rows.isEmpty()) return new RouteChangesRes(List.of(), cursorOf(cursor[0], cursor[1]), false);
+
+        // Latest entry per route, in the order of that entry
+        Map<Long, RouteChange> latest = new LinkedHashMap<>();
+        for (RouteChange c : rows) {
+            latest.remove(c.getRouteId());
+            latest.put(c.getRouteId(), c);
+        }
+
+        List<Long> live = latest.values().stream()
+                .filter(c -> c.getOp() != RouteChange.Op.DELETED)
+                .map(RouteChange::getRouteId)
+                .toList();
+        Map<Long, RouteRes> current = new HashMap<>();
+        if (!live.isEmpty()) {
+            for (RouteRes r : routeService.getBatchForViewer(live, viewer, false)) current.put(r.getId(), r);
+        }
+
+        List<RouteChangeRes> out = new ArrayList<>(latest.size());
+        for (RouteChange c : latest.values()) {
+            String at = cursorOf(c.getTxId(), c.getSeq());
+            RouteRes r = c.getOp() == RouteChange.Op.DELETED ? null : current.get(c.getRouteId());
+            if (r == null || (!r.isPublic() && !r.isCanEdit())) {
+                // Deleted (possibly by a transaction not in the feed yet) or no longer visible
+                out.add(new RouteChangeRes(at, RouteChange.Op.DELETED.name(), c.getRouteId(), null));
+            } else {
+                out.add(new RouteChangeRes(at, c.getOp().name(), c.getRouteId(), r));
+            }
+        }
+
+        RouteChange last = rows.get(rows.size() - 1);
+        return new RouteChangesRes(out, cursorOf(last.getTxId(), last.getSeq()), hasMore);
+    }
+
+    @Scheduled(fixedDelayString = "${app.routes.changes-cleanup-ms:3600000}")
+    public void cleanup() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            int compacted = commands.compact(now.minusHours(compactHours));
+            int expired = commands.expireTombstones(now.minusDays(retentionDays));
+            if (compacted + expired > 0) {
+                log.info("Route change log: {} superseded entries compacted, {} tombstones expired", compacted, expired);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Route change log cleanup failed: {}", ex.toString());
+        }
+    }
+
+    private static String cursorOf(long txId, long seq) {
+        return txId + "." + seq;
+    }
+
+    private static long[] parseCursor(String since) {
+        if (since == null || since.isBlank()) return new long[]{0, 0};
+        int dot = since.indexOf('.');
+        try {
+            if (dot < 0) throw new NumberFormatException();
+            return new long[]{Long.parseLong(since.substring(0, dot)), Long.parseLong(since.substring(dot + 1))};
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + since);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.orienteering.service;
+
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * Published by RouteServiceImpl inside the write transaction, with the route's
+ * state before and after the change. Create has no "before", delete no "after"
+ * (both modelled as not public with no geometry). Metadata-only changes carry
+ * geometries only when they change visibility, and a private route's deletion
+ * carries none. The version is the route's version after the change (for a
+ * delete, the last one it had).
+ */
+public record RouteChangedEvent(
+        Kind kind,
+        long routeId,
+        long version,
+        String ownerUsername,
+        boolean wasPublic,
+        LineString oldGeom,
+        boolean isPublic,
+        LineString newGeom
+) {
+    public enum Kind { CREATED, UPDATED, DELETED }
+
+    public static RouteChangedEvent created(long id, long version, String owner, boolean isPublic, LineString geom) {
+        return new RouteChangedEvent(Kind.CREATED, id, version, owner, false, null, isPublic, geom);
+    }
+
+    public static RouteChangedEvent updated(long id, long version, String owner,
+                                            boolean wasPublic, LineString oldGeom,
+                                            boolean isPublic, LineString newGeom) {
+        return new RouteChangedEvent(Kind.UPDATED, id, version, owner, wasPublic, oldGeom, isPublic, newGeom);
+    }
+
+    public static RouteChangedEvent deleted(long id, long version, String owner, boolean wasPublic, LineString geom) {
+        return new RouteChangedEvent(Kind.DELETED, id, version, owner, wasPublic, geom, false, null);
+    }
+
+    /** Whether the geometry itself was set, replaced or removed (visibility aside) */
+    public boolean geometryChanged() {
+        if (oldGeom == null || newGeom == null) return oldGeom != newGeom;
+        return oldGeom != newGeom && !oldGeom.equalsExact(newGeom);
+    }
+}
@@ -0,0 +1,239 @@
+package com.orienteering.service;
+
+import com.orienteering.dto.RouteClusterRes;
+import com.orienteering.geo.ClusterGrid;
+import com.orienteering.geo.GeoMath;
+import com.orienteering.repo.RouteRepo;
+import org.locationtech.jts.geom.Coordinate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Clusters of public route start points for zoomed-out maps. One {@link ClusterGrid}
+ * per zoom level, with cells of app.clusters.cell-pixels screen pixels; a route is
+ * in exactly one cell per level, so writes are O(levels) and queries only touch the
+ * cells in view. Loaded from the read-model start columns, then kept current by
+ * RouteChangedEvents after commit and by changes other nodes announce on the
+ * {@link RouteInvalidationBus}; a resync rebuilds it off to the side and swaps it in.
+ */
+@Service
+public class RouteClusterIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteClusterIndex.class);
+    private static final int LOAD_BATCH = 5000;
+
+    private final RouteRepo routeRepo;
+    private final int maxZoom;
+    private final int maxResults;
+    private final int cellsPerTile;
+
+    /** Current index; replaced wholesale by a reload. Guarded by {@code lock}. */
+    private Index index;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Events seen while a load runs (null when none does); replayed after it */
+    private List<RouteChangedEvent> pendingDuringLoad = new ArrayList<>();
+    /** Routes changed on other nodes while a load runs; re-read after it */
+    private final Set<Long> remoteDuringLoad = new HashSet<>();
+
+    public RouteClusterIndex(
+            RouteRepo routeRepo,
+            @Value("${app.clusters.max-zoom:16}") int maxZoom,
+            @Value("${app.clusters.cell-pixels:64}") int cellPixels,
+            @Value("${app.clusters.max-results:5000}") int maxResults
+    ) {
+        this.routeRepo = routeRepo;
+        this.maxZoom = maxZoom;
+        this.maxResults = maxResults;
+        this.cellsPerTile = Math.max(1, 256 / Math.max(1, cellPixels));
+        this.index = new Index();
+    }
+
+    /** Grids for every zoom plus the indexed start points (Mercator x, y), to make updates idempotent */
+    private final class Index {
+        final ClusterGrid[] levels = new ClusterGrid[maxZoom + 1];
+        final Map<Long, double[]> starts = new HashMap<>();
+
+        Index() {
+            for (int z = 0; z <= maxZoom; z++) levels[z] = new ClusterGrid((1 << z) * cellsPerTile);
+        }
+
+        void put(long id, double lng, double lat) {
+            double x = GeoMath.mercatorX(lng), y = GeoMath.mercatorY(lat);
+            double[] prev = starts.get(id);
+            if (prev != null) {
+                if (prev[0] == x && prev[1] == y) return;
+                update(id, prev[0], prev[1], -1);
+            }
+            starts.put(id, new double[]{x, y});
+            update(id, x, y, +1);
+        }
+
+        void remove(long id) {
+            double[] prev = starts.remove(id);
+            if (prev != null) update(id, prev[0], prev[1], -1);
+        }
+
+        private void update(long id, double x, double y, int delta) {
+            for (ClusterGrid level : levels) level.update(x, y, id, delta);
+        }
+    }
+
+    /* ------------ queries ------------ */
+
+    public List<RouteClusterRes> clusters(double minLng, double minLat, double maxLng, double maxLat, int zoom) {
+        if (!(minLng < maxLng && minLat < maxLat)) {
+            throw new IllegalArgumentException("bbox must be minLng,minLat,maxLng,maxLat");
+        }
+        List<RouteClusterRes> out = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            ClusterGrid grid = index.levels[Math.max(0, Math.min(maxZoom, zoom))];
+            int x0 = grid.cell(GeoMath.mercatorX(minLng)), x1 = grid.cell(GeoMath.mercatorX(maxLng));
+            int y0 = grid.cell(GeoMath.mercatorY(maxLat)), y1 = grid.cell(GeoMath.mercatorY(minLat));
+            grid.forEachIn(x0, y0, x1, y1, (count, x, y, singleId) -> {
+                if (out.size() >= maxResults) return;
+                out.add(new RouteClusterRes(GeoMath.mercatorLng(x), GeoMath.mercatorLat(y), count,
+                        count == 1 ? singleId : null));
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return out;
+    }
+
+    /* ------------ maintenance ------------ */
+
+    @TransactionalEventListener
+    public void onRouteChanged(RouteChangedEvent e) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringLoad != null) {
+                pendingDuringLoad.add(e);
+                return;
+            }
+            apply(index, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Index index, RouteChangedEvent e) {
+        if (e.kind() == RouteChangedEvent.Kind.DELETED || !e.isPublic()) {
+            index.remove(e.routeId());
+        } else if (e.newGeom() != null && !e.newGeom().isEmpty()) {
+            Coordinate start = e.newGeom().getCoordinateN(0);
+            index.put(e.routeId(), start.x, start.y);
+        } else if (e.oldGeom() != null) {
+            index.remove(e.routeId()); // geometry cleared
+        }
+        // else: metadata-only change of a public route, start unchanged
+    }
+
+    /** Changes made on other nodes carry no geometry: re-read the affected starts. */
+    @EventListener
+    public void onRemoteChanges(RemoteRouteChangesEvent e) {
+        List<Long> ids = e.changes().stream()
+                .filter(RemoteRouteChangesEvent.Change::affectsPublicGeometry)
+                .map(RemoteRouteChangesEvent.Change::routeId)
+                .toList();
+        if (ids.isEmpty()) return;
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringLoad != null) {
+                remoteDuringLoad.addAll(ids);
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        refresh(ids);
+    }
+
+    private void refresh(Collection<Long> ids) {
+        List<Object[]> rows = routeRepo.findPublicStartsByIdIn(ids);
+        lock.writeLock().lock();
+        try {
+            Set<Long> missing = new HashSet<>(ids);
+            for (Object[] row : rows) {
+                long id = ((Number) row[0]).longValue();
+                missing.remove(id);
+                index.put(id, ((Number) row[1]).doubleValue(), ((Number) row[2]).doubleValue());
+            }
+            for (Long id : missing) index.remove(id); // deleted, made private or geometry cleared
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        Thread t = new Thread(this::load, "cluster-index-init");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Remote changes may have been missed: rebuild in the background, keep serving the old index. */
+    @EventListener
+    public void onResync(RouteCacheResyncEvent e) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringLoad != null) return; // a load is already running
+            pendingDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Thread t = new Thread(this::load, "cluster-index-reload");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Builds a fresh index from the read-model columns and swaps it in. */
+    private void load() {
+        long start = System.nanoTime();
+        Index fresh = new Index();
+        long lastId = 0;
+        int loaded = 0;
+        try {
+            while (true) {
+                List<Object[]> batch = routeRepo.findPublicStartsAfter(lastId, LOAD_BATCH);
+                if (batch.isEmpty()) break;
+                for (Object[] row : batch) {
+                    lastId = ((Number) row[0]).longValue();
+                    fresh.put(lastId, ((Number) row[1]).doubleValue(), ((Number) row[2]).doubleValue());
+                }
+                loaded += batch.size();
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Cluster index load stopped after {} routes: {}", loaded, ex.toString());
+        }
+        List<Long> remote;
+        lock.writeLock().lock();
+        try {
+            // Later events win over rows the scan may have read before they committed
+            for (RouteChangedEvent e : pendingDuringLoad) apply(fresh, e);
+            pendingDuringLoad = null;
+            index = fresh;
+            remote = new ArrayList<>(remoteDuringLoad);
+            remoteDuringLoad.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!remote.isEmpty()) refresh(remote);
+        log.info("Cluster index loaded {} route starts in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+}
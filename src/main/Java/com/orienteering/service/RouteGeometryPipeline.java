@@ -0,0 +1,396 @@
+package com.orienteering.service;
+
+import com.orienteering.config.HotPathEvent;
+import com.orienteering.domain.Route;
+import com.orienteering.domain.RouteStatus;
+import com.orienteering.dto.RouteGeomPatchReq;
+import com.orienteering.geo.GeoMath;
+import com.orienteering.geo.LineSplicer;
+import com.orienteering.geo.PackedGeometries;
+import com.orienteering.repo.RouteRepo;
+import jakarta.annotation.PreDestroy;
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.io.WKTReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Turns uploaded WKT into a route geometry: parse, validate (vertex limits, coordinate
+ * ranges, optionally self-intersections), repair/normalize (2D, 1e-7 degree grid, no
+ * repeated points) and derive stats (distance when missing, elevation).
+ *
+ * Small uploads go through {@link #prepare} on the request thread. Large ones are
+ * stored as {@link RouteStatus#PROCESSING} with the raw WKT and finished here on a
+ * bounded pool once the creating transaction has committed; when every slot is taken
+ * the upload is refused with a 503 before anything is saved.
+ */
+@Service
+public class RouteGeometryPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteGeometryPipeline.class);
+
+    private final RouteRepo routeRepo;
+    private final ElevationService elevation;
+    private final RouteSimilarityService similarity;
+    private final ApplicationEventPublisher events;
+    private final UserRouteStatsService stats;
+    private final TransactionTemplate tx;
+
+    private final GeometryFactory factory = PackedGeometries.factory(new PrecisionModel(1e7));
+    private final int asyncThresholdChars;
+    private final int maxVertices;
+    private final boolean rejectSelfIntersections;
+    private final int maxEditOps;
+
+    private final ExecutorService executor;
+    /** Running + queued jobs; bounds the executor's otherwise unbounded queue */
+    private final Semaphore slots;
+
+    public RouteGeometryPipeline(
+            RouteRepo routeRepo,
+            ElevationService elevation,
+            RouteSimilarityService similarity,
+            ApplicationEventPublisher events,
+            UserRouteStatsService stats,
+            TransactionTemplate tx,
+            @Value("${app.geometry.async-threshold-chars:200000}") int asyncThresholdChars,
+            @Value("${app.geometry.max-vertices:500000}") int maxVertices,
+            @Value("${app.geometry.reject-self-intersections:false}") boolean rejectSelfIntersections,
+            @Value("${app.geometry.max-edit-ops:1000}") int maxEditOps,
+            @Value("${app.geometry.pipeline.threads:2}") int threads,
+            @Value("${app.geometry.pipeline.queue-capacity:50}") int queueCapacity
+    ) {
+        this.routeRepo = routeRepo;
+        this.elevation = elevation;
+        this.similarity = similarity;
+        this.events = events;
+        this.stats = stats;
+        this.tx = tx;
+        this.asyncThresholdChars = asyncThresholdChars;
+        this.maxVertices = maxVertices;
+        this.rejectSelfIntersections = rejectSelfIntersections;
+        this.maxEditOps = maxEditOps;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "geometry-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.slots = new Semaphore(Math.max(1, threads) + Math.max(0, queueCapacity));
+    }
+
+    /** Whether this upload is big enough to be processed in the background. */
+    public boolean isLarge(String wkt) {
+        return wkt != null && wkt.length() > asyncThresholdChars;
+    }
+
+    /* ------------ stages ------------ */
+
+    /** Parse, validate and normalize; IllegalArgumentException describes what is wrong. */
+    public LineString prepare(String wkt) {
+        return normalize(validate(parse(wkt)));
+    }
+
+    private LineString parse(String wkt) {
+        HotPathEvent event = HotPathEvent.start(HotPathEvent.WKT_PARSE);
+        LineString parsed = null;
+        try {
+            String cleaned = wkt.replaceFirst("^SRID=\\d+\\s*;\\s*", "").trim();
+            Geometry g = new WKTReader(factory).read(cleaned);
+            if (!(g instanceof LineString)) {
+                throw new IllegalArgumentException("Only LINESTRING WKT is supported");
+            }
+            parsed = (LineString) g;
+            return parsed;
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid WKT: " + ex.getMessage(), ex);
+        } finally {
+            event.finish(0, parsed != null ? parsed.getNumPoints() : 0, wkt.length());
+        }
+    }
+
+    private LineString validate(LineString ls) {
+        int n = ls.getNumPoints();
+        if (n < 2) throw new IllegalArgumentException("A route needs at least 2 points");
+        if (n > maxVertices) {
+            throw new IllegalArgumentException("Route has " + n + " points, the limit is " + maxVertices);
+        }
+        CoordinateSequence cs = ls.getCoordinateSequence();
+        for (int i = 0; i < n; i++) {
+            double x = cs.getX(i), y = cs.getY(i);
+            if (!(x >= -180 && x <= 180 && y >= -90 && y <= 90)) {
+                throw new IllegalArgumentException("Point " + i + " is not a lon/lat coordinate: " + x + " " + y);
+            }
+        }
+        // Off by default: loops and figure-eights are normal courses
+        if (rejectSelfIntersections && !ls.isSimple()) {
+            throw new IllegalArgumentException("Route crosses itself");
+        }
+        return ls;
+    }
+
+    /** 2D only, snapped to the precision model, consecutive duplicates dropped; packed XY. */
+    private LineString normalize(LineString ls) {
+        PrecisionModel pm = factory.getPrecisionModel();
+        CoordinateSequence cs = ls.getCoordinateSequence();
+        double[] xy = new double[cs.size() * 2];
+        int n = 0;
+        for (int i = 0; i < cs.size(); i++) {
+            double x = pm.makePrecise(cs.getX(i)), y = pm.makePrecise(cs.getY(i));
+            if (n > 0 && xy[2 * n - 2] == x && xy[2 * n - 1] == y) continue;
+            xy[2 * n] = x;
+            xy[2 * n + 1] = y;
+            n++;
+        }
+        if (n < 2) throw new IllegalArgumentException("A route needs at least 2 distinct points");
+        return PackedGeometries.lineString(factory, xy, n);
+    }
+
+    /**
+     * Applies vertex-range edits to the route's stored geometry through a {@link LineSplicer},
+     * which keeps the distance delta and bbox current. Only the new vertices are validated
+     * and snapped. Elevation is recomputed over the whole line, as its smoothing is not local.
+     */
+    public void edit(Route r, List<RouteGeomPatchReq.Op> ops) {
+        LineString ls = r.getGeom();
+        if (ls == null || ls.isEmpty()) throw new IllegalArgumentException("Route has no geometry to edit");
+        if (ops.size() > maxEditOps) {
+            throw new IllegalArgumentException("At most " + maxEditOps + " edit operations per request");
+        }
+        Envelope bbox = r.getVertexCount() != null
+                ? new Envelope(r.getBboxMinLng(), r.getBboxMaxLng(), r.getBboxMinLat(), r.getBboxMaxLat())
+                : ls.getEnvelopeInternal();
+        LineSplicer splicer = new LineSplicer(ls, bbox);
+
+        for (int i = 0; i < ops.size(); i++) {
+            RouteGeomPatchReq.Op op = ops.get(i);
+            int from = op.getFrom();
+            double[] coords = editCoords(op.getCoords(), i);
+            int m = coords.length / 2;
+            switch (op.getOp().toLowerCase(Locale.ROOT)) {
+                case "insert" -> {
+                    if (op.getTo() != null && op.getTo() != from) {
+                        throw new IllegalArgumentException("Op " + i + ": insert takes no 'to'");
+                    }
+                    if (m == 0) throw new IllegalArgumentException("Op " + i + ": insert needs coords");
+                    splicer.splice(from, from, coords, m);
+                }
+                case "replace" -> {
+                    if (m == 0) throw new IllegalArgumentException("Op " + i + ": replace needs coords (use delete)");
+                    splicer.splice(from, editEnd(op, i), coords, m);
+                }
+                case "delete" -> {
+                    if (m > 0) throw new IllegalArgumentException("Op " + i + ": delete takes no coords");
+                    splicer.splice(from, editEnd(op, i), coords, 0);
+                }
+                default -> throw new IllegalArgumentException("Op " + i + ": unknown op '" + op.getOp() + "'");
+            }
+            if (splicer.size() > maxVertices) {
+                throw new IllegalArgumentException("Route would have " + splicer.size() + " points, the limit is " + maxVertices);
+            }
+        }
+
+        LineString edited = splicer.toLineString(factory);
+        if (edited.getNumPoints() < 2) throw new IllegalArgumentException("A route needs at least 2 distinct points");
+        if (rejectSelfIntersections && !edited.isSimple()) {
+            throw new IllegalArgumentException("Route crosses itself");
+        }
+        r.setGeom(edited, splicer.envelope());
+        if (r.getDistanceMeters() != null) {
+            r.setDistanceMeters((int) Math.max(0, Math.round(r.getDistanceMeters() + splicer.lengthDelta())));
+        }
+        deriveStats(r);
+    }
+
+    private static int editEnd(RouteGeomPatchReq.Op op, int i) {
+        if (op.getTo() == null) throw new IllegalArgumentException("Op " + i + ": '" + op.getOp() + "' needs 'to'");
+        return op.getTo();
+    }
+
+    /** [lng, lat] pairs to packed x,y on the precision grid, range-checked like uploads. */
+    private double[] editCoords(List<double[]> coords, int op) {
+        if (coords == null || coords.isEmpty()) return new double[0];
+        if (coords.size() > maxVertices) {
+            throw new IllegalArgumentException("Op " + op + " has " + coords.size() + " points, the limit is " + maxVertices);
+        }
+        PrecisionModel pm = factory.getPrecisionModel();
+        double[] xy = new double[coords.size() * 2];
+        for (int j = 0; j < coords.size(); j++) {
+            double[] c = coords.get(j);
+            if (c == null || c.length < 2) throw new IllegalArgumentException("Op " + op + ": point " + j + " needs [lng, lat]");
+            double x = c[0], y = c[1];
+            if (!(x >= -180 && x <= 180 && y >= -90 && y <= 90)) {
+                throw new IllegalArgumentException("Op " + op + ": point " + j + " is not a lon/lat coordinate: " + x + " " + y);
+            }
+            xy[2 * j] = pm.makePrecise(x);
+            xy[2 * j + 1] = pm.makePrecise(y);
+        }
+        return xy;
+    }
+
+    /** Distance (when the client did not send one) and elevation from the geometry. */
+    public void deriveStats(Route r) {
+        LineString ls = r.getGeom();
+        if (ls != null && r.getDistanceMeters() == null) {
+            CoordinateSequence cs = ls.getCoordinateSequence();
+            double d = 0;
+            for (int i = 1; i < cs.size(); i++) {
+                d += GeoMath.haversine(cs.getY(i - 1), cs.getX(i - 1), cs.getY(i), cs.getX(i));
+            }
+            r.setDistanceMeters((int) Math.round(d));
+        }
+        elevation.apply(r);
+    }
+
+    /* ------------ background processing ------------ */
+
+    /**
+     * Takes a slot for the route's pending WKT and starts it after the surrounding
+     * transaction commits (the slot is given back on rollback). 503 when full.
+     */
+    public void enqueueAfterCommit(long routeId, boolean allowDuplicate) {
+        if (!slots.tryAcquire()) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Too many large uploads in progress, please retry shortly");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) submit(routeId, allowDuplicate);
+                else slots.release();
+            }
+        });
+    }
+
+    private void submit(long routeId, boolean allowDuplicate) {
+        try {
+            executor.execute(() -> {
+                try {
+                    process(routeId, allowDuplicate);
+                } catch (RuntimeException ex) {
+                    log.warn("Geometry processing for route {} failed: {}", routeId, ex.toString());
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Shutting down; the route stays PROCESSING and is resumed on next start
+            slots.release();
+        }
+    }
+
+    private void process(long routeId, boolean allowDuplicate) {
+        String wkt = tx.execute(s -> routeRepo.findById(routeId)
+                .filter(r -> r.getStatus() == RouteStatus.PROCESSING)
+                .map(Route::getPendingGeomWkt)
+                .orElse(null));
+        if (wkt == null) return; // deleted, or replaced by a later synchronous edit
+
+        // All heavy work happens outside any transaction
+        Route scratch = new Route();
+        String error = null;
+        try {
+            scratch.setGeom(prepare(wkt));
+            deriveStats(scratch);
+        } catch (IllegalArgumentException ex) {
+            error = ex.getMessage();
+        }
+        String failure = error;
+
+        // A metadata PATCH may bump the version meanwhile; re-read and apply again
+        for (int attempt = 1; ; attempt++) {
+            try {
+                tx.executeWithoutResult(s -> {
+                    Route r = routeRepo.findById(routeId).orElse(null);
+                    if (r == null || r.getStatus() != RouteStatus.PROCESSING || !wkt.equals(r.getPendingGeomWkt())) return;
+
+                    String reason = failure;
+                    if (reason == null && !allowDuplicate) {
+                        reason = similarity.findDuplicate(scratch.getGeom(), r.getOwnerUsername())
+                                .map(d -> "Route duplicates existing route " + d.getId() + " (" + d.getName() + ")")
+                                .orElse(null);
+                    }
+                    r.setPendingGeomWkt(null);
+                    if (reason != null) {
+                        r.setStatus(RouteStatus.FAILED);
+                        r.setProcessingError(truncate(reason));
+                        routeRepo.flush(); // settles the version the event carries
+                        // Status only: no geometry change for spatial listeners
+                        events.publishEvent(RouteChangedEvent.updated(r.getId(), r.getVersion(), r.getOwnerUsername(),
+                                r.isPublic(), null, r.isPublic(), null));
+                        return;
+                    }
+
+                    LineString oldGeom = r.getGeom();
+                    r.setGeom(scratch.getGeom());
+                    r.setAscentMeters(scratch.getAscentMeters());
+                    r.setDescentMeters(scratch.getDescentMeters());
+                    r.setElevationProfile(scratch.getElevationProfile());
+                    if (r.getDistanceMeters() == null && scratch.getDistanceMeters() != null) {
+                        r.setDistanceMeters(scratch.getDistanceMeters());
+                        stats.onChange(r.getOwnerUsername(),
+                                new UserRouteStatsService.RouteFacts(r.isPublic(), null, r.getCreatedAt()),
+                                new UserRouteStatsService.RouteFacts(r.isPublic(), r.getDistanceMeters(), r.getCreatedAt()));
+                    }
+                    r.setStatus(RouteStatus.READY);
+                    r.setProcessingError(null);
+                    routeRepo.flush();
+                    events.publishEvent(RouteChangedEvent.updated(r.getId(), r.getVersion(), r.getOwnerUsername(),
+                            r.isPublic(), oldGeom, r.isPublic(), r.getGeom()));
+                });
+                return;
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt == 3) throw ex;
+            }
+        }
+    }
+
+    private static String truncate(String s) {
+        return s.length() <= 500 ? s : s.substring(0, 497) + "...";
+    }
+
+    /** Picks up uploads that were still pending when the application last stopped. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        List<Long> pending = routeRepo.findIdsByStatus(RouteStatus.PROCESSING);
+        if (pending.isEmpty()) return;
+        log.info("Resuming geometry processing for {} routes", pending.size());
+        Thread t = new Thread(() -> {
+            for (Long id : pending) {
+                try {
+                    slots.acquire();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // The original duplicate check choice is not stored; the upload was accepted already
+                submit(id, true);
+            }
+        }, "geometry-resume");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
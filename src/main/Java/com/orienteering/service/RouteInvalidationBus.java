@@ -0,0 +1,327 @@
+package com.orienteering.service;
+
+import com.orienteering.config.ReadYourWritesTracker;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross-node cache invalidation over Postgres LISTEN/NOTIFY, so in-process route caches
+ * stay coherent behind a load balancer without another moving part.
+ * <p>
+ * Publishing: every committed RouteChangedEvent goes to an outbox; one thread drains it
+ * into NOTIFY messages (route id, version, visibility, owner; never geometry, the payload
+ * limit is 8000 bytes). Each message carries this node's id and a sequence number, and an
+ * idle node sends a heartbeat with its latest sequence number.
+ * <p>
+ * Listening: a dedicated connection (not from the pool; it must reach the primary
+ * directly, notifications are not replicated) collects notifications for
+ * app.bus.batch-window-ms, collapses them per route and publishes one
+ * {@link RemoteRouteChangesEvent}. A sequence gap, a reconnect or a silent connection
+ * (not even our own heartbeat arrives) publishes a {@link RouteCacheResyncEvent} instead
+ * of guessing what was missed.
+ */
+@Service
+public class RouteInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteInvalidationBus.class);
+    private static final String VERSION = "v1";
+    /** Postgres rejects payloads of 8000 bytes or more */
+    private static final int MAX_PAYLOAD = 7000;
+
+    private record Outgoing(RouteChangedEvent.Kind kind, long routeId, long version, String owner,
+                            boolean wasPublic, boolean isPublic, boolean geometryChanged) {}
+
+    private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
+    private final ReadYourWritesTracker readYourWrites;
+    private final boolean enabled;
+    private final String channel;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long batchWindowMs;
+    private final long heartbeatMs;
+    private final long maxBackoffMs;
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final BlockingQueue<Outgoing> outbox;
+    /** Last sequence number used; bumped without sending when a message is lost */
+    private long seq;
+    /** Highest sequence number seen per remote node, since the current connection was made */
+    private final Map<String, Long> lastSeqByNode = new HashMap<>();
+    private volatile boolean running;
+    private Thread publisher;
+    private Thread listener;
+
+    public RouteInvalidationBus(
+            JdbcTemplate jdbc,
+            ApplicationEventPublisher events,
+            ReadYourWritesTracker readYourWrites,
+            @Value("${app.bus.enabled:true}") boolean enabled,
+            @Value("${app.bus.channel:route_invalidation}") String channel,
+            @Value("${app.bus.url:${spring.datasource.url}}") String url,
+            @Value("${app.bus.username:${spring.datasource.username}}") String username,
+            @Value("${app.bus.password:${spring.datasource.password}}") String password,
+            @Value("${app.bus.batch-window-ms:100}") long batchWindowMs,
+            @Value("${app.bus.heartbeat-ms:10000}") long heartbeatMs,
+            @Value("${app.bus.max-backoff-ms:30000}") long maxBackoffMs,
+            @Value("${app.bus.outbox-capacity:10000}") int outboxCapacity
+    ) {
+        if (!channel.matches("[a-z_][a-z0-9_]{0,62}")) {
+            throw new IllegalArgumentException("app.bus.channel must be a lower-case SQL identifier: " + channel);
+        }
+        this.jdbc = jdbc;
+        this.events = events;
+        this.readYourWrites = readYourWrites;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.batchWindowMs = Math.max(1, batchWindowMs);
+        this.heartbeatMs = Math.max(100, heartbeatMs);
+        this.maxBackoffMs = Math.max(1000, maxBackoffMs);
+        this.outbox = new ArrayBlockingQueue<>(Math.max(1, outboxCapacity));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        publisher = daemon(this::publishLoop, "route-bus-publisher");
+        listener = daemon(this::listenLoop, "route-bus-listener");
+        log.info("Route invalidation bus started on channel {} as node {}", channel, nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (publisher != null) publisher.interrupt();
+        if (listener != null) listener.interrupt();
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    /* ------------ publishing ------------ */
+
+    @TransactionalEventListener
+    public void onRouteChanged(RouteChangedEvent e) {
+        if (!running) return;
+        Outgoing out = new Outgoing(e.kind(), e.routeId(), e.version(), e.ownerUsername(),
+                e.wasPublic(), e.isPublic(), e.geometryChanged());
+        if (!outbox.offer(out)) {
+            // Receivers notice the skipped sequence number and resync
+            synchronized (this) { seq++; }
+        }
+    }
+
+    private void publishLoop() {
+        while (running) {
+            Outgoing first;
+            try {
+                first = outbox.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (first == null) {
+                long current;
+                synchronized (this) { current = seq; }
+                send(header(current));
+                continue;
+            }
+            StringBuilder body = new StringBuilder();
+            append(body, first);
+            Outgoing next;
+            while (body.length() < MAX_PAYLOAD - 512 && (next = outbox.poll()) != null) {
+                append(body, next);
+            }
+            long current;
+            synchronized (this) { current = ++seq; }
+            send(header(current) + body);
+        }
+    }
+
+    private String header(long s) {
+        return VERSION + " " + nodeId + " " + s;
+    }
+
+    private static void append(StringBuilder body, Outgoing o) {
+        int flags = (o.wasPublic() ? 1 : 0) | (o.isPublic() ? 2 : 0) | (o.geometryChanged() ? 4 : 0);
+        body.append('\n').append(o.kind().name().charAt(0))
+                .append(' ').append(o.routeId())
+                .append(' ').append(o.version())
+                .append(' ').append(flags)
+                .append(' ').append(o.owner() == null ? "" : o.owner());
+    }
+
+    private void send(String payload) {
+        try {
+            jdbc.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+        } catch (RuntimeException ex) {
+            // The sequence number is spent either way, so receivers see the gap
+            log.warn("Could not publish route invalidation: {}", ex.getMessage());
+        }
+    }
+
+    /* ------------ listening ------------ */
+
+    private void listenLoop() {
+        long backoff = 1000;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection c = DriverManager.getConnection(url, username, password)) {
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                lastSeqByNode.clear();
+                if (connectedBefore) resync("listener reconnected");
+                connectedBefore = true;
+                backoff = 1000;
+                receive(c.unwrap(PGConnection.class));
+            } catch (SQLException | RuntimeException ex) {
+                if (running) log.warn("Route invalidation listener lost its connection: {}", ex.getMessage());
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, maxBackoffMs);
+        }
+    }
+
+    private void receive(PGConnection pg) throws SQLException {
+        long lastHeard = System.nanoTime();
+        while (running) {
+            PGNotification[] first = pg.getNotifications((int) heartbeatMs);
+            long now = System.nanoTime();
+            if (first == null || first.length == 0) {
+                if (now - lastHeard > TimeUnit.MILLISECONDS.toNanos(3 * heartbeatMs)) {
+                    throw new SQLException("no notifications, not even our own heartbeat, for " + (3 * heartbeatMs) + " ms");
+                }
+                continue;
+            }
+            lastHeard = now;
+
+            Map<Long, RemoteRouteChangesEvent.Change> batch = new LinkedHashMap<>();
+            String gap = handle(first, batch);
+            long deadline = now + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+            long remainingMs;
+            while ((remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) > 0) {
+                PGNotification[] more = pg.getNotifications((int) remainingMs);
+                if (more == null || more.length == 0) break;
+                String g = handle(more, batch);
+                if (gap == null) gap = g;
+            }
+            dispatch(batch, gap);
+        }
+    }
+
+    /** Parses messages into the batch; returns a description of the first gap, if any. */
+    private String handle(PGNotification[] notifications, Map<Long, RemoteRouteChangesEvent.Change> batch) {
+        String gap = null;
+        for (PGNotification n : notifications) {
+            String[] lines = n.getParameter().split("\n");
+            String[] header = lines[0].split(" ");
+            if (header.length != 3 || !VERSION.equals(header[0])) {
+                log.debug("Ignoring unknown route invalidation message: {}", lines[0]);
+                continue;
+            }
+            String node = header[1];
+            if (node.equals(nodeId)) continue; // our own, only proves the connection is alive
+            try {
+                long s = Long.parseLong(header[2]);
+                boolean heartbeat = lines.length == 1;
+                Long prev = lastSeqByNode.get(node);
+                if (prev != null && (heartbeat ? s > prev : s > prev + 1) && gap == null) {
+                    gap = "node " + node + " skipped from " + prev + " to " + s;
+                }
+                lastSeqByNode.put(node, prev == null ? s : Math.max(prev, s));
+
+                for (int i = 1; i < lines.length; i++) {
+                    RemoteRouteChangesEvent.Change c = parse(lines[i]);
+                    batch.merge(c.routeId(), c, RouteInvalidationBus::collapse);
+                }
+            } catch (RuntimeException ex) {
+                if (gap == null) gap = "unreadable message from node " + node;
+            }
+        }
+        return gap;
+    }
+
+    private static RemoteRouteChangesEvent.Change parse(String line) {
+        String[] f = line.split(" ", 5);
+        RouteChangedEvent.Kind kind = switch (f[0].charAt(0)) {
+            case 'C' -> RouteChangedEvent.Kind.CREATED;
+            case 'D' -> RouteChangedEvent.Kind.DELETED;
+            default -> RouteChangedEvent.Kind.UPDATED;
+        };
+        int flags = Integer.parseInt(f[3]);
+        return new RemoteRouteChangesEvent.Change(kind, Long.parseLong(f[1]), Long.parseLong(f[2]),
+                f.length > 4 && !f[4].isEmpty() ? f[4] : null,
+                (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0);
+    }
+
+    /** Two changes of one route in a batch: the earlier "before", the later "after" */
+    private static RemoteRouteChangesEvent.Change collapse(RemoteRouteChangesEvent.Change a,
+                                                          RemoteRouteChangesEvent.Change b) {
+        boolean bLater = b.version() > a.version()
+                || (b.version() == a.version() && b.kind() == RouteChangedEvent.Kind.DELETED);
+        RemoteRouteChangesEvent.Change earlier = bLater ? a : b, later = bLater ? b : a;
+        return new RemoteRouteChangesEvent.Change(later.kind(), later.routeId(), later.version(),
+                later.ownerUsername() != null ? later.ownerUsername() : earlier.ownerUsername(),
+                earlier.wasPublic(), later.isPublic(),
+                earlier.geometryChanged() || later.geometryChanged());
+    }
+
+    private void dispatch(Map<Long, RemoteRouteChangesEvent.Change> batch, String gap) {
+        try {
+            if (!batch.isEmpty()) {
+                // The writer may now read from this node; keep them on the primary
+                for (RemoteRouteChangesEvent.Change c : batch.values()) readYourWrites.recordWrite(c.ownerUsername());
+                events.publishEvent(new RemoteRouteChangesEvent(List.copyOf(batch.values())));
+            }
+            if (gap != null) resync(gap);
+        } catch (RuntimeException ex) {
+            log.warn("Applying remote route changes failed, resyncing: {}", ex.toString());
+            resync("listener error");
+        }
+    }
+
+    private void resync(String reason) {
+        log.info("Resyncing route caches: {}", reason);
+        try {
+            events.publishEvent(new RouteCacheResyncEvent(reason));
+        } catch (RuntimeException ex) {
+            log.warn("Route cache resync failed: {}", ex.toString());
+        }
+    }
+}
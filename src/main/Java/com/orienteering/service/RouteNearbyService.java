@@ -0,0 +1,138 @@
+package com.orienteering.service;
+
+import com.orienteering.dto.NearbyRouteRes;
+import com.orienteering.dto.NearbyRoutesRes;
+import com.orienteering.repo.RouteRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * "Routes near me": public routes by geodesic distance from a point, within a radius
+ * and an optional length range, paged by a "meters:id" keyset cursor.
+ * <p>
+ * The database walks a partial GiST index on geography(geom) in sphere-distance order
+ * ({@code <->}) and stops after a small candidate batch, so the cost depends on the
+ * page size and not on the catalogue. Only that batch gets the exact (spheroid)
+ * distance. Sphere and spheroid differ by well under {@link #SPHERE_ERROR}, so a full
+ * batch is trusted up to the nearest distance an unseen route could still have; if
+ * that leaves less than a page, the batch is fetched again, larger.
+ */
+@Service
+public class RouteNearbyService {
+
+    /** Bound on the relative difference between sphere and WGS84 spheroid distances */
+    private static final double SPHERE_ERROR = 0.005;
+
+    private final RouteRepo routeRepo;
+    private final double maxRadiusMeters;
+    private final int maxLimit;
+    private final int candidateFactor;
+    private final int maxCandidates;
+
+    public RouteNearbyService(RouteRepo routeRepo,
+                              @Value("${app.nearby.max-radius-meters:50000}") double maxRadiusMeters,
+                              @Value("${app.nearby.max-limit:100}") int maxLimit,
+                              @Value("${app.nearby.candidate-factor:2}") int candidateFactor,
+                              @Value("${app.nearby.max-candidates:5000}") int maxCandidates) {
+        this.routeRepo = routeRepo;
+        this.maxRadiusMeters = maxRadiusMeters;
+        this.maxLimit = maxLimit;
+        this.candidateFactor = Math.max(1, candidateFactor);
+        this.maxCandidates = maxCandidates;
+    }
+
+    private record Candidate(NearbyRouteRes route, double meters) {}
+
+    private record Cursor(double meters, long id) {}
+
+    @Transactional(readOnly = true)
+    public NearbyRoutesRes nearby(double lat, double lng, double radiusMeters,
+                                  Integer minLength, Integer maxLength, String after, int limit) {
+        if (!(lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180)) {
+            throw new IllegalArgumentException("lat/lng out of range");
+        }
+        if (!(radiusMeters > 0 && radiusMeters <= maxRadiusMeters)) {
+            throw new IllegalArgumentException("radius must be between 0 and " + (long) maxRadiusMeters + " meters");
+        }
+        int minLen = minLength != null ? minLength : 0;
+        int maxLen = maxLength != null ? maxLength : Integer.MAX_VALUE;
+        if (minLen < 0 || minLen > maxLen) throw new IllegalArgumentException("Invalid length range");
+        boolean anyLength = minLength == null && maxLength == null;
+        int n = Math.max(1, Math.min(limit, maxLimit));
+
+        Cursor cursor = parseCursor(after);
+        double afterMeters = cursor.meters();
+        long afterId = cursor.id();
+
+        double minSphere = afterMeters > 0 ? afterMeters * (1 - SPHERE_ERROR) : 0;
+        double sphereRadius = radiusMeters * (1 + SPHERE_ERROR);
+
+        int candidates = Math.min((n + 1) * candidateFactor, maxCandidates);
+        while (true) {
+            List<Object[]> rows = routeRepo.findNearbyPublicCandidates(lng, lat, sphereRadius, minSphere,
+                    minLen, maxLen, anyLength, candidates);
+            boolean capped = rows.size() >= candidates;
+            double lastSphere = rows.isEmpty() ? 0 : ((Number) rows.get(rows.size() - 1)[6]).doubleValue();
+            // An unseen route is at least this far away
+            double exactBelow = capped ? lastSphere * (1 - SPHERE_ERROR) : Double.POSITIVE_INFINITY;
+
+            List<Candidate> sorted = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Candidate c = candidate(row);
+                if (c.meters() > radiusMeters) continue;
+                if (c.meters() < afterMeters || (c.meters() == afterMeters && c.route().getId() <= afterId)) continue;
+                sorted.add(c);
+            }
+            sorted.sort(Comparator.comparingDouble(Candidate::meters).thenComparing(c -> c.route().getId()));
+
+            int exact = 0;
+            while (exact < sorted.size() && sorted.get(exact).meters() < exactBelow) exact++;
+
+            if (exact > n || !capped || candidates >= maxCandidates) {
+                // At the candidate ceiling the tail is taken as is: approximate only in
+                // pathological cases (thousands of routes within a few meters)
+                List<Candidate> page = candidates >= maxCandidates && capped ? sorted : sorted.subList(0, exact);
+                boolean hasMore = page.size() > n || capped;
+                if (page.size() > n) page = page.subList(0, n);
+                List<NearbyRouteRes> out = page.stream().map(Candidate::route).toList();
+                String next = page.isEmpty()
+                        ? after
+                        : cursorOf(page.get(page.size() - 1).meters(), page.get(page.size() - 1).route().getId());
+                return new NearbyRoutesRes(out, next, hasMore && !page.isEmpty());
+            }
+            candidates = Math.min(candidates * 4, maxCandidates);
+        }
+    }
+
+    private static Candidate candidate(Object[] row) {
+        NearbyRouteRes r = new NearbyRouteRes(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                (String) row[2],
+                row[3] == null ? null : ((Number) row[3]).intValue(),
+                row[4] == null ? null : ((Number) row[4]).doubleValue(),
+                row[5] == null ? null : ((Number) row[5]).doubleValue(),
+                ((Number) row[7]).doubleValue());
+        return new Candidate(r, r.getMetersAway());
+    }
+
+    private static String cursorOf(double meters, long id) {
+        return meters + ":" + id;
+    }
+
+    private static Cursor parseCursor(String after) {
+        if (after == null || after.isBlank()) return new Cursor(-1, 0);
+        int colon = after.indexOf(':');
+        try {
+            if (colon < 0) throw new NumberFormatException();
+            return new Cursor(Double.parseDouble(after.substring(0, colon)), Long.parseLong(after.substring(colon + 1)));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + after);
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.orienteering.service;
 
 import com.orienteering.domain.Route;
 import com.orienteering.dto.RouteCreateReq;
+import com.orienteering.dto.RouteGeomPatchReq;
+import com.orienteering.dto.RoutePatchReq;
 import com.orienteering.dto.RouteRes;
 import com.orienteering.dto.RouteUpdateReq;
+import com.orienteering.repo.RouteView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -14,12 +17,23 @@ public interface RouteService {
     RouteRes create(RouteCreateReq req);
 
     RouteRes update(Long id, RouteUpdateReq req, String username);
+
+    /** Metadata-only update in one conditional statement; 409 when req.version is stale */
+    RouteRes patch(Long id, RoutePatchReq req, String username);
+    /** Vertex-range edits to the stored geometry; 409 when req.version is stale */
+    RouteRes patchGeometry(Long id, RouteGeomPatchReq req, String username);
     void delete(Long id, String username);
 
     List<RouteRes> mine(String username);
     Route findById(Long id);
+
+    /** Row without geometry decoding (read-model columns only) */
+    RouteView viewById(Long id);
     Page<RouteRes> listPublic(Pageable pageable);
 
     /** Details for viewer (includes geometry if allowed) */
     RouteRes getForViewer(Long id, String viewerEmail);
+
+    /** Same visibility as getForViewer for many ids at once; unknown ids are skipped, order follows ids */
+    List<RouteRes> getBatchForViewer(List<Long> ids, String viewerEmail, boolean includeGeom);
 }
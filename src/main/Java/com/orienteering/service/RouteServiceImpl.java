@@ -1,53 +1,129 @@
 package com.orienteering.service;
 
+import com.orienteering.config.HotPathEvent;
+import com.orienteering.config.ReadYourWritesTracker;
 import com.orienteering.domain.Route;
+import com.orienteering.domain.RouteStatus;
 import com.orienteering.dto.RouteCreateReq;
+import com.orienteering.dto.RouteGeomPatchReq;
+import com.orienteering.dto.RoutePatchReq;
 import com.orienteering.dto.RouteRes;
 import com.orienteering.dto.RouteUpdateReq;
+import com.orienteering.geo.PackedGeometries;
+import com.orienteering.repo.RouteCommands;
 import com.orienteering.repo.RouteRepo;
-import org.locationtech.jts.geom.Geometry;
+import com.orienteering.repo.RouteView;
 import org.locationtech.jts.geom.LineString;
-import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+/**
+ * Writes run in the class-level read-write transaction; reads are marked read-only,
+ * which switches Hibernate to manual flush without dirty checking and lets
+ * {@link com.orienteering.config.ReplicaRoutingDataSource} send them to a replica.
+ */
 @Service
 @Transactional
 public class RouteServiceImpl implements RouteService {
 
     private final RouteRepo routeRepo;
-    private final GeometryFactory geometryFactory = new GeometryFactory();
+    private final RouteCommands commands;
+    private final ReadYourWritesTracker readYourWrites;
+    private final RouteSimilarityService similarity;
+    private final RouteGeometryPipeline geometry;
+    private final ApplicationEventPublisher events;
+    private final UserRouteStatsService stats;
+    private final TransactionTemplate tx;
+    private final int batchMaxIds;
 
-    public RouteServiceImpl(RouteRepo routeRepo) {
+    public RouteServiceImpl(RouteRepo routeRepo,
+                            RouteCommands commands,
+                            ReadYourWritesTracker readYourWrites,
+                            RouteSimilarityService similarity,
+                            RouteGeometryPipeline geometry,
+                            ApplicationEventPublisher events,
+                            UserRouteStatsService stats,
+                            TransactionTemplate tx,
+                            @Value("${app.routes.batch-max-ids:300}") int batchMaxIds) {
         this.routeRepo = routeRepo;
+        this.commands = commands;
+        this.readYourWrites = readYourWrites;
+        this.similarity = similarity;
+        this.geometry = geometry;
+        this.events = events;
+        this.stats = stats;
+        this.tx = tx;
+        this.batchMaxIds = batchMaxIds;
     }
 
     /* ------------ helpers ------------ */
 
     private LineString parseLineString(String wkt) {
+        if (wkt == null || wkt.isBlank()) return null;
+        return geometry.prepare(wkt);
+    }
+
+    private static LineString fromWkb(byte[] wkb) {
+        if (wkb == null) return null;
         try {
-            if (wkt == null || wkt.isBlank()) return null;
-            String cleaned = wkt.replaceFirst("^SRID=\\d+\\s*;\\s*", "").trim();
-            Geometry g = new WKTReader(geometryFactory).read(cleaned);
-            if (!(g instanceof LineString)) {
-                throw new IllegalArgumentException("Only LINESTRING WKT is supported");
-            }
-            g.setSRID(4326);
-            return (LineString) g;
-        } catch (Exception ex) {
-            throw new IllegalArgumentException("Invalid WKT: " + ex.getMessage(), ex);
+            return (LineString) new WKBReader(PackedGeometries.FACTORY).read(wkb);
+        } catch (ParseException ex) {
+            throw new IllegalStateException("Unreadable geometry from database", ex);
+        }
+    }
+
+    private static UserRouteStatsService.RouteFacts facts(Route r) {
+        return new UserRouteStatsService.RouteFacts(r.isPublic(), r.getDistanceMeters(), r.getCreatedAt());
+    }
+
+    /**
+     * Maps a failed conditional write on an existing-or-not row to 404 / 403 / 409.
+     * Without an expected version (delete) there is no conflict to report: the owner's
+     * write can only have missed a row that a concurrent delete removed, so that is a 404.
+     */
+    private RuntimeException rejected(long id, String username, Long expectedVersion) {
+        RouteCommands.OwnerVersion row = commands.findOwnerAndVersion(id)
+                .orElseThrow(() -> new NoSuchElementException("Route not found: " + id));
+        if (!row.ownerUsername().equalsIgnoreCase(username)) {
+            return new SecurityException("Forbidden: not the owner");
+        }
+        if (expectedVersion == null) {
+            return new NoSuchElementException("Route not found: " + id);
         }
+        return new ResponseStatusException(CONFLICT,
+                "Route " + id + " was modified (version " + row.version() + ", you sent " + expectedVersion + ")");
     }
 
-    private String toWkt(LineString ls) {
-        if (ls == null) return null;
-        return ls.toText();
+    /** Parks a large upload on the route; the pipeline swaps it in after commit. */
+    private void deferGeometry(Route r, String wkt) {
+        r.setStatus(RouteStatus.PROCESSING);
+        r.setProcessingError(null);
+        r.setPendingGeomWkt(wkt);
+    }
+
+    /** The geometry was set synchronously: supersedes any upload still pending. */
+    private void geometryReady(Route r) {
+        r.setStatus(RouteStatus.READY);
+        r.setProcessingError(null);
+        r.setPendingGeomWkt(null);
     }
 
     private RouteRes toDto(Route r, boolean includeGeom, boolean canEdit) {
@@ -58,18 +134,56 @@ public class RouteServiceImpl implements RouteService {
         dto.setPublic(r.isPublic());
         dto.setOwnerUsername(r.getOwnerUsername());
         dto.setCanEdit(canEdit);
-        dto.setCreatedAt(r.getCreatedAt() == null ? null : r.getCreatedAt().atZone(java.time.ZoneId.systemDefault()).toInstant());
-        dto.setGeomWkt(includeGeom ? toWkt(r.getGeom()) : null);
+        dto.setAscentMeters(r.getAscentMeters());
+        dto.setDescentMeters(r.getDescentMeters());
+        dto.setCreatedAt(toInstant(r.getCreatedAt()));
+        dto.setGeomWkt(includeGeom ? r.getGeomWkt() : null);
+        if (r.getVertexCount() != null) {
+            dto.setBbox(new double[]{r.getBboxMinLng(), r.getBboxMinLat(), r.getBboxMaxLng(), r.getBboxMaxLat()});
+            dto.setVertexCount(r.getVertexCount());
+        }
+        dto.setVersion(r.getVersion());
+        dto.setStatus(r.getStatus().name());
+        dto.setProcessingError(r.getProcessingError());
         return dto;
     }
 
-    private RouteRes toDto(Route r) {
-        return toDto(r, false, false);
+    /** Same shape as above, straight from the read-model columns */
+    private RouteRes toDto(RouteView v, boolean includeGeom, boolean canEdit) {
+        RouteRes dto = new RouteRes();
+        dto.setId(v.id());
+        dto.setName(v.name());
+        dto.setDistanceMeters(v.distanceMeters());
+        dto.setPublic(v.isPublic());
+        dto.setOwnerUsername(v.ownerUsername());
+        dto.setCanEdit(canEdit);
+        dto.setAscentMeters(v.ascentMeters());
+        dto.setDescentMeters(v.descentMeters());
+        dto.setCreatedAt(toInstant(v.createdAt()));
+        dto.setGeomWkt(includeGeom ? v.geomWkt() : null);
+        if (v.hasGeom()) {
+            dto.setBbox(new double[]{v.bboxMinLng(), v.bboxMinLat(), v.bboxMaxLng(), v.bboxMaxLat()});
+            dto.setVertexCount(v.vertexCount());
+        }
+        dto.setVersion(v.version());
+        dto.setStatus(v.statusOrReady().name());
+        dto.setProcessingError(v.processingError());
+        return dto;
+    }
+
+    private static java.time.Instant toInstant(LocalDateTime t) {
+        return t == null ? null : t.atZone(java.time.ZoneId.systemDefault()).toInstant();
     }
 
     /* ------------ create / list / details ------------ */
 
+    /**
+     * The duplicate check reads up to app.similarity.max-candidates geometries and scores
+     * them for up to app.similarity.timeout-ms, so it runs before the write transaction
+     * opens rather than holding a connection and row locks for that long.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public RouteRes create(String username, RouteCreateReq req) {
         Route r = new Route();
         r.setOwnerUsername(username);
@@ -77,9 +191,29 @@ public class RouteServiceImpl implements RouteService {
         r.setDistanceMeters(req.getDistanceMeters());
         r.setPublic(req.isPublic());
         r.setCreatedAt(LocalDateTime.now());
-        r.setGeom(parseLineString(req.getGeomWkt()));
-        r = routeRepo.save(r);
-        return toDto(r, true, true); // owner sees geom
+
+        boolean large = geometry.isLarge(req.getGeomWkt());
+        if (large) {
+            deferGeometry(r, req.getGeomWkt());
+        } else {
+            r.setGeom(parseLineString(req.getGeomWkt()));
+            if (!req.isAllowDuplicate()) {
+                similarity.findDuplicate(r.getGeom(), username).ifPresent(d -> {
+                    throw new ResponseStatusException(CONFLICT,
+                            "Route duplicates existing route " + d.getId() + " (" + d.getName() + ")");
+                });
+            }
+            geometry.deriveStats(r);
+        }
+        return tx.execute(s -> {
+            Route saved = routeRepo.save(r);
+            if (large) geometry.enqueueAfterCommit(saved.getId(), req.isAllowDuplicate());
+            stats.onChange(username, null, facts(saved));
+            readYourWrites.recordWriteAfterCommit(username);
+            events.publishEvent(RouteChangedEvent.created(saved.getId(), saved.getVersion(), username,
+                    saved.isPublic(), saved.getGeom()));
+            return toDto(saved, true, true); // owner sees geom
+        });
     }
 
     @Override
@@ -88,30 +222,85 @@ public class RouteServiceImpl implements RouteService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RouteRes> mine(String username) {
-        return routeRepo.findByOwnerUsername(username)
+        return routeRepo.findSummariesByOwner(username)
                 .stream()
-                .map(r -> toDto(r, false, true))
+                .map(v -> toDto(v, false, true))
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Route findById(Long id) {
         return routeRepo.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Route not found: " + id));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public org.springframework.data.domain.Page<RouteRes> listPublic(org.springframework.data.domain.Pageable pageable) {
-        return routeRepo.findByIsPublicTrue(pageable).map(this::toDto);
+        return routeRepo.findPublicSummaries(pageable).map(v -> toDto(v, false, false));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RouteView viewById(Long id) {
+        HotPathEvent event = HotPathEvent.start(HotPathEvent.DB_LOAD);
+        RouteView v = null;
+        try {
+            v = routeRepo.findViewById(id)
+                    .orElseThrow(() -> new NoSuchElementException("Route not found: " + id));
+            return v;
+        } finally {
+            event.finish(id, v != null && v.vertexCount() != null ? v.vertexCount() : 0,
+                    v != null && v.geomWkt() != null ? v.geomWkt().length() : 0);
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public RouteRes getForViewer(Long id, String viewerEmail) {
-        Route r = findById(id);
-        boolean canEdit = viewerEmail != null && viewerEmail.equalsIgnoreCase(r.getOwnerUsername());
-        boolean canSeeGeom = r.isPublic() || canEdit;
-        return toDto(r, canSeeGeom, canEdit);
+        return toViewerDto(viewById(id), viewerEmail, true);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RouteRes> getBatchForViewer(List<Long> ids, String viewerEmail, boolean includeGeom) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.size() > batchMaxIds) {
+            throw new IllegalArgumentException("At most " + batchMaxIds + " ids per batch");
+        }
+        if (distinct.isEmpty()) return List.of();
+
+        HotPathEvent event = HotPathEvent.start(HotPathEvent.DB_LOAD);
+        List<RouteView> rows = includeGeom
+                ? routeRepo.findViewsByIdIn(distinct)
+                : routeRepo.findSummariesByIdIn(distinct);
+        if (event.isEnabled()) {
+            int vertices = 0;
+            long bytes = 0;
+            for (RouteView v : rows) {
+                if (v.vertexCount() != null) vertices += v.vertexCount();
+                if (v.geomWkt() != null) bytes += v.geomWkt().length();
+            }
+            event.finish(0, vertices, bytes);
+        }
+        Map<Long, RouteView> byId = new HashMap<>();
+        for (RouteView v : rows) byId.put(v.id(), v);
+
+        List<RouteRes> out = new ArrayList<>(byId.size());
+        for (Long id : distinct) {
+            RouteView v = byId.get(id);
+            if (v != null) out.add(toViewerDto(v, viewerEmail, includeGeom));
+        }
+        return out;
+    }
+
+    private RouteRes toViewerDto(RouteView v, String viewerEmail, boolean wantGeom) {
+        boolean canEdit = viewerEmail != null && viewerEmail.equalsIgnoreCase(v.ownerUsername());
+        boolean canSeeGeom = v.isPublic() || canEdit;
+        return toDto(v, wantGeom && canSeeGeom, canEdit);
     }
 
     /* ------------ update / delete ------------ */
@@ -124,31 +313,101 @@ public class RouteServiceImpl implements RouteService {
         if (!r.getOwnerUsername().equalsIgnoreCase(username)) {
             throw new SecurityException("Forbidden: not the owner");
         }
+        boolean wasPublic = r.isPublic();
+        LineString oldGeom = r.getGeom();
+        UserRouteStatsService.RouteFacts before = facts(r);
 
         if (req.getName() != null) r.setName(req.getName());
         if (req.getDistanceMeters() != null) r.setDistanceMeters(req.getDistanceMeters());
         if (req.getPublic() != null) r.setPublic(req.getPublic());
 
-        if (req.getGeomWkt() != null) {
+        boolean large = geometry.isLarge(req.getGeomWkt());
+        if (large) {
+            // Keeps serving the current geometry until the new one is processed
+            deferGeometry(r, req.getGeomWkt());
+        } else if (req.getGeomWkt() != null) {
             if (req.getGeomWkt().isBlank()) {
                 r.setGeom(null);
             } else {
                 r.setGeom(parseLineString(req.getGeomWkt()));
             }
+            geometry.deriveStats(r);
+            geometryReady(r);
         }
 
-        r = routeRepo.save(r);
+        // Flushed so a stats recompute sees the new distance
+        r = routeRepo.saveAndFlush(r);
+        if (large) geometry.enqueueAfterCommit(r.getId(), true);
+        stats.onChange(r.getOwnerUsername(), before, facts(r));
+        readYourWrites.recordWriteAfterCommit(username);
+        events.publishEvent(RouteChangedEvent.updated(r.getId(), r.getVersion(), r.getOwnerUsername(),
+                wasPublic, oldGeom, r.isPublic(), r.getGeom()));
         return toDto(r, true, true);
     }
 
     @Override
-    public void delete(Long id, String username) {
+    public RouteRes patch(Long id, RoutePatchReq req, String username) {
+        if (req.getName() != null && req.getName().isBlank()) {
+            throw new IllegalArgumentException("Name must not be blank");
+        }
+        RouteCommands.Patched p = commands.patch(id, username, req.getVersion(),
+                        req.getName(), req.getDistanceMeters(), req.getPublic())
+                .orElseThrow(() -> rejected(id, username, req.getVersion()));
+        RouteView v = p.view();
+        stats.onChange(v.ownerUsername(),
+                new UserRouteStatsService.RouteFacts(p.wasPublic(), p.oldDistanceMeters(), v.createdAt()),
+                new UserRouteStatsService.RouteFacts(v.isPublic(), v.distanceMeters(), v.createdAt()));
+        readYourWrites.recordWriteAfterCommit(username);
+
+        // Geometry is unchanged; it is only returned (and needed) when visibility flipped
+        LineString geom = fromWkb(p.geomWkbIfVisibilityChanged());
+        events.publishEvent(RouteChangedEvent.updated(id, v.version(), v.ownerUsername(),
+                p.wasPublic(), geom, v.isPublic(), geom));
+        return toDto(v, false, true);
+    }
+
+    /**
+     * Edits the stored coordinate sequence in place of re-uploading the whole WKT. The
+     * response leaves out the geometry (the editor already has it); version, distance,
+     * bbox and vertex count let it confirm the result.
+     */
+    @Override
+    public RouteRes patchGeometry(Long id, RouteGeomPatchReq req, String username) {
         Route r = routeRepo.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Route not found: " + id));
-
         if (!r.getOwnerUsername().equalsIgnoreCase(username)) {
             throw new SecurityException("Forbidden: not the owner");
         }
-        routeRepo.delete(r);
+        if (!Objects.equals(r.getVersion(), req.getVersion())) {
+            throw new ResponseStatusException(CONFLICT,
+                    "Route " + id + " was modified (version " + r.getVersion() + ", you sent " + req.getVersion() + ")");
+        }
+        if (r.getStatus() == RouteStatus.PROCESSING) {
+            throw new ResponseStatusException(CONFLICT, "Route " + id + " has an upload still processing");
+        }
+        boolean wasPublic = r.isPublic();
+        LineString oldGeom = r.getGeom();
+        UserRouteStatsService.RouteFacts before = facts(r);
+
+        geometry.edit(r, req.getOps());
+        geometryReady(r);
+
+        // A concurrent write since the version check fails here on the version column
+        r = routeRepo.saveAndFlush(r);
+        stats.onChange(r.getOwnerUsername(), before, facts(r));
+        readYourWrites.recordWriteAfterCommit(username);
+        events.publishEvent(RouteChangedEvent.updated(r.getId(), r.getVersion(), r.getOwnerUsername(),
+                wasPublic, oldGeom, r.isPublic(), r.getGeom()));
+        return toDto(r, false, true);
+    }
+
+    @Override
+    public void delete(Long id, String username) {
+        RouteCommands.Deleted d = commands.deleteOwned(id, username)
+                .orElseThrow(() -> rejected(id, username, null));
+        stats.onChange(d.ownerUsername(),
+                new UserRouteStatsService.RouteFacts(d.wasPublic(), d.distanceMeters(), d.createdAt()), null);
+        readYourWrites.recordWriteAfterCommit(username);
+        events.publishEvent(RouteChangedEvent.deleted(id, d.version(), d.ownerUsername(), d.wasPublic(), fromWkb(d.geomWkbIfPublic())));
     }
 }
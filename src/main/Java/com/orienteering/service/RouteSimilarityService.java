@@ -0,0 +1,163 @@
+package com.orienteering.service;
+
+import com.orienteering.domain.Route;
+import com.orienteering.dto.SimilarRouteRes;
+import com.orienteering.geo.DiscreteFrechet;
+import com.orienteering.geo.GeoMath;
+import com.orienteering.repo.RouteRepo;
+import jakarta.annotation.PreDestroy;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Finds routes that retrace a given line. Candidates come from the spatial index
+ * (envelope plus start/end points); each is then scored with discrete Fréchet
+ * distance on simplified geometries, in parallel and within a time budget.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RouteSimilarityService {
+
+    private final RouteRepo routeRepo;
+    private final ExecutorService executor;
+    private final double duplicateMeters;
+    private final double defaultMaxMeters;
+    private final double simplifyMeters;
+    private final int maxCandidates;
+    private final long timeoutMs;
+
+    public RouteSimilarityService(
+            RouteRepo routeRepo,
+            @Value("${app.similarity.duplicate-meters:30}") double duplicateMeters,
+            @Value("${app.similarity.max-meters:250}") double defaultMaxMeters,
+            @Value("${app.similarity.simplify-meters:5}") double simplifyMeters,
+            @Value("${app.similarity.max-candidates:500}") int maxCandidates,
+            @Value("${app.similarity.timeout-ms:300}") long timeoutMs,
+            @Value("${app.similarity.threads:0}") int threads
+    ) {
+        this.routeRepo = routeRepo;
+        this.duplicateMeters = duplicateMeters;
+        this.defaultMaxMeters = defaultMaxMeters;
+        this.simplifyMeters = simplifyMeters;
+        this.maxCandidates = maxCandidates;
+        this.timeoutMs = timeoutMs;
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(n, r -> {
+            Thread t = new Thread(r, "route-similarity");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Routes visible to the viewer that resemble route {@code id}, closest first. */
+    public List<SimilarRouteRes> similarTo(Long id, String viewer, int limit, Double maxMeters) {
+        Route r = routeRepo.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Route not found: " + id));
+        boolean owner = viewer != null && viewer.equalsIgnoreCase(r.getOwnerUsername());
+        if (!r.isPublic() && !owner) {
+            throw new SecurityException("Forbidden: route is private");
+        }
+        if (r.getGeom() == null) return List.of();
+
+        double bound = maxMeters != null && maxMeters > 0 ? maxMeters : defaultMaxMeters;
+        List<SimilarRouteRes> ranked = rank(r.getGeom(), r.getId(), viewer, bound);
+        return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+    }
+
+    /** The closest existing route within the duplicate threshold, if any. */
+    public Optional<SimilarRouteRes> findDuplicate(LineString geom, String owner) {
+        if (geom == null || geom.getNumPoints() < 2) return Optional.empty();
+        return rank(geom, null, owner, duplicateMeters).stream().findFirst();
+    }
+
+    private List<SimilarRouteRes> rank(LineString geom, Long excludeId, String viewer, double bound) {
+        Envelope env = geom.getEnvelopeInternal();
+        Coordinate start = geom.getCoordinateN(0);
+        Coordinate end = geom.getCoordinateN(geom.getNumPoints() - 1);
+        double tolDeg = GeoMath.metersToDegrees(bound, env.centre().y);
+
+        List<Long> ids = routeRepo.findSimilarCandidateIds(
+                env.getMinX(), env.getMinY(), env.getMaxX(), env.getMaxY(),
+                start.x, start.y, end.x, end.y,
+                tolDeg, excludeId == null ? -1L : excludeId, viewer, maxCandidates);
+        if (ids.isEmpty()) return List.of();
+
+        double refLng = start.x, refLat = start.y;
+        Projected reference = project(geom, refLng, refLat);
+
+        List<Callable<SimilarRouteRes>> tasks = new ArrayList<>(ids.size());
+        for (Route c : routeRepo.findAllById(ids)) {
+            if (c.getGeom() == null) continue;
+            tasks.add(() -> score(reference, c, refLng, refLat, bound));
+        }
+
+        List<SimilarRouteRes> out = new ArrayList<>();
+        try {
+            // invokeAll cancels whatever has not finished when the budget runs out
+            for (Future<SimilarRouteRes> f : executor.invokeAll(tasks, timeoutMs, TimeUnit.MILLISECONDS)) {
+                if (f.isCancelled()) continue;
+                SimilarRouteRes res = f.get();
+                if (res != null) out.add(res);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Similarity scoring failed", ex.getCause());
+        }
+        out.sort(Comparator.comparingDouble(SimilarRouteRes::getFrechetMeters));
+        return out;
+    }
+
+    private SimilarRouteRes score(Projected reference, Route candidate, double refLng, double refLat, double bound) {
+        Projected c = project(candidate.getGeom(), refLng, refLat);
+        double forward = DiscreteFrechet.distance(reference.x, reference.y, c.x, c.y, bound);
+        double best = forward;
+        if (!Thread.currentThread().isInterrupted()) {
+            // The same course run backwards is still a duplicate
+            double backward = DiscreteFrechet.distance(reference.x, reference.y, c.reversedX(), c.reversedY(),
+                    Math.min(bound, forward));
+            best = Math.min(forward, backward);
+        }
+        if (best == DiscreteFrechet.ABANDONED) return null;
+        return new SimilarRouteRes(candidate.getId(), candidate.getName(), candidate.getDistanceMeters(),
+                candidate.isPublic(), Math.round(best * 10) / 10.0);
+    }
+
+    private Projected project(LineString ls, double refLng, double refLat) {
+        double tolDeg = GeoMath.metersToDegrees(simplifyMeters, refLat);
+        Geometry simplified = DouglasPeuckerSimplifier.simplify(ls, tolDeg);
+        CoordinateSequence cs = ((LineString) simplified).getCoordinateSequence();
+        double[] x = new double[cs.size()], y = new double[cs.size()];
+        for (int i = 0; i < cs.size(); i++) {
+            x[i] = GeoMath.projectX(cs.getX(i), refLng, refLat);
+            y[i] = GeoMath.projectY(cs.getY(i), refLat);
+        }
+        return new Projected(x, y);
+    }
+
+    private record Projected(double[] x, double[] y) {
+        double[] reversedX() { return reversed(x); }
+        double[] reversedY() { return reversed(y); }
+
+        private static double[] reversed(double[] a) {
+            double[] r = new double[a.length];
+            for (int i = 0; i < a.length; i++) r[i] = a[a.length - 1 - i];
+            return r;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
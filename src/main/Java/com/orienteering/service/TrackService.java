@@ -0,0 +1,185 @@
+package com.orienteering.service;
+
+import com.orienteering.domain.Track;
+import com.orienteering.domain.TrackChunk;
+import com.orienteering.dto.TrackPointsRes;
+import com.orienteering.dto.TrackRes;
+import com.orienteering.dto.TrackUploadReq;
+import com.orienteering.geo.GeoMath;
+import com.orienteering.geo.TrackCodec;
+import com.orienteering.repo.RouteView;
+import com.orienteering.repo.TrackChunkRepo;
+import com.orienteering.repo.TrackRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Recorded GPS tracks, attached to the route that was run. Points are stored as
+ * {@link TrackCodec} chunks of app.tracks.chunk-points (an hour at 1 Hz by default),
+ * a few bytes per point, so replaying a window only fetches and decodes the
+ * chunks that overlap it.
+ * <p>
+ * A track is shown to others only while its route is visible to them too: a public
+ * track on a route made private would otherwise keep publishing the route's shape.
+ * The track's owner always sees their own tracks.
+ */
+@Service
+@Transactional
+public class TrackService {
+
+    private final TrackRepo trackRepo;
+    private final TrackChunkRepo chunkRepo;
+    private final RouteService routeService;
+    private final int chunkPoints;
+    private final int maxPoints;
+
+    public TrackService(TrackRepo trackRepo,
+                        TrackChunkRepo chunkRepo,
+                        RouteService routeService,
+                        @Value("${app.tracks.chunk-points:3600}") int chunkPoints,
+                        @Value("${app.tracks.max-points:200000}") int maxPoints) {
+        this.trackRepo = trackRepo;
+        this.chunkRepo = chunkRepo;
+        this.routeService = routeService;
+        this.chunkPoints = Math.max(16, chunkPoints);
+        this.maxPoints = maxPoints;
+    }
+
+    public TrackRes upload(String username, TrackUploadReq req) {
+        RouteView route = routeService.viewById(req.getRouteId());
+        if (!route.isPublic() && !route.ownerUsername().equalsIgnoreCase(username)) {
+            throw new SecurityException("Forbidden: route is private");
+        }
+        List<TrackCodec.Point> points = parse(req.getPoints());
+
+        double distance = 0;
+        for (int i = 1; i < points.size(); i++) {
+            TrackCodec.Point a = points.get(i - 1), b = points.get(i);
+            distance += GeoMath.haversine(a.lat(), a.lng(), b.lat(), b.lng());
+        }
+
+        Track t = new Track();
+        t.setRouteId(req.getRouteId());
+        t.setOwnerUsername(username);
+        t.setName(req.getName());
+        t.setPublic(req.isPublic());
+        t.setStartedAt(Instant.ofEpochMilli(points.get(0).timeMillis()));
+        t.setEndedAt(Instant.ofEpochMilli(points.get(points.size() - 1).timeMillis()));
+        t.setPointCount(points.size());
+        t.setDistanceMeters((int) Math.round(distance));
+        t.setCreatedAt(LocalDateTime.now());
+        t = trackRepo.save(t);
+
+        List<TrackChunk> chunks = new ArrayList<>();
+        long stored = 0;
+        for (int from = 0, seq = 0; from < points.size(); from += chunkPoints, seq++) {
+            int to = Math.min(points.size(), from + chunkPoints);
+            byte[] data = TrackCodec.encode(points, from, to);
+            stored += data.length;
+            chunks.add(new TrackChunk(t.getId(), seq, points.get(from).timeMillis(),
+                    points.get(to - 1).timeMillis(), to - from, data));
+        }
+        chunkRepo.saveAll(chunks);
+        t.setStoredBytes(stored);
+        return toDto(t);
+    }
+
+    private List<TrackCodec.Point> parse(List<double[]> raw) {
+        if (raw == null || raw.isEmpty()) throw new IllegalArgumentException("A track needs at least one point");
+        if (raw.size() > maxPoints) {
+            throw new IllegalArgumentException("Track has " + raw.size() + " points, the limit is " + maxPoints);
+        }
+        List<TrackCodec.Point> out = new ArrayList<>(raw.size());
+        long prevT = Long.MIN_VALUE;
+        for (int i = 0; i < raw.size(); i++) {
+            double[] p = raw.get(i);
+            if (p == null || p.length < 3 || p.length > 4) {
+                throw new IllegalArgumentException("Point " + i + " must be [epochMillis, lat, lng] or [epochMillis, lat, lng, elevation]");
+            }
+            long t = (long) p[0];
+            double lat = p[1], lng = p[2];
+            if (t <= prevT) throw new IllegalArgumentException("Point " + i + " is not after the previous one");
+            if (!(lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180)) {
+                throw new IllegalArgumentException("Point " + i + " is not a lat/lng coordinate: " + lat + " " + lng);
+            }
+            Double ele = p.length == 4 && Double.isFinite(p[3]) ? p[3] : null;
+            out.add(new TrackCodec.Point(t, lat, lng, ele));
+            prevT = t;
+        }
+        return out;
+    }
+
+    @Transactional(readOnly = true)
+    public TrackRes get(Long id, String viewer) {
+        return toDto(visible(id, viewer));
+    }
+
+    @Transactional(readOnly = true)
+    public List<TrackRes> forRoute(Long routeId, String viewer) {
+        boolean routeVisible = routeVisible(routeService.viewById(routeId), viewer);
+        return trackRepo.findVisibleByRoute(routeId, viewer).stream()
+                .filter(t -> routeVisible || isOwner(t, viewer))
+                .map(TrackService::toDto)
+                .toList();
+    }
+
+    /** Points with from <= time <= to (either bound may be null for the track's start / end). */
+    @Transactional(readOnly = true)
+    public TrackPointsRes points(Long id, Instant from, Instant to, String viewer) {
+        Track t = visible(id, viewer);
+        long fromMs = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMs = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        if (fromMs > toMs) throw new IllegalArgumentException("from must not be after to");
+
+        List<double[]> out = new ArrayList<>();
+        for (TrackChunk c : chunkRepo.findOverlapping(t.getId(), fromMs, toMs)) {
+            for (TrackCodec.Point p : TrackCodec.decode(c.getData(), fromMs, toMs)) {
+                out.add(p.elevation() == null
+                        ? new double[]{p.timeMillis(), p.lat(), p.lng()}
+                        : new double[]{p.timeMillis(), p.lat(), p.lng(), p.elevation()});
+            }
+        }
+        return new TrackPointsRes(t.getId(), out);
+    }
+
+    public void delete(Long id, String username) {
+        Track t = trackRepo.findById(id).orElseThrow(() -> new NoSuchElementException("Track not found: " + id));
+        if (!t.getOwnerUsername().equalsIgnoreCase(username)) {
+            throw new SecurityException("Forbidden: not the owner");
+        }
+        chunkRepo.deleteByTrackId(id);
+        trackRepo.delete(t);
+    }
+
+    private Track visible(Long id, String viewer) {
+        Track t = trackRepo.findById(id).orElseThrow(() -> new NoSuchElementException("Track not found: " + id));
+        if (isOwner(t, viewer)) return t;
+        if (!t.isPublic()) {
+            throw new SecurityException("Forbidden: track is private");
+        }
+        if (!routeVisible(routeService.viewById(t.getRouteId()), viewer)) {
+            throw new SecurityException("Forbidden: route is private");
+        }
+        return t;
+    }
+
+    private static boolean isOwner(Track t, String viewer) {
+        return viewer != null && viewer.equalsIgnoreCase(t.getOwnerUsername());
+    }
+
+    private static boolean routeVisible(RouteView route, String viewer) {
+        return route.isPublic() || (viewer != null && viewer.equalsIgnoreCase(route.ownerUsername()));
+    }
+
+    private static TrackRes toDto(Track t) {
+        return new TrackRes(t.getId(), t.getRouteId(), t.getOwnerUsername(), t.getName(), t.isPublic(),
+                t.getStartedAt(), t.getEndedAt(), t.getPointCount(), t.getDistanceMeters(), t.getStoredBytes());
+    }
+}
@@ -0,0 +1,228 @@
+package com.orienteering.service;
+
+import com.orienteering.dto.RouteRes;
+import com.orienteering.repo.RouteViewCommands;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * "Trending this week": public routes ranked by views with exponential decay.
+ * <p>
+ * A details view is one {@link LongAdder} increment in a map keyed by route id, with
+ * no lock and no database call; the map is capped at app.trending.max-tracked routes.
+ * Every app.trending.flush-ms the map is swapped out and its counts go to
+ * route_view_buckets (one row per route per bucket) in a single upsert, and are folded
+ * into in-memory decayed scores. The top K of those are resolved to route summaries
+ * once per flush, so {@link #trending} only reads a list.
+ * <p>
+ * Every app.trending.rebuild-ms the scores are reloaded from the buckets of the last
+ * window-days: that drops views that left the window and adds the views other nodes
+ * flushed. Between rebuilds a node ranks with its own views on top of the last reload.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    private final RouteViewCommands commands;
+    private final RouteService routeService;
+    private final int maxTracked;
+    private final int topK;
+    private final Duration window;
+    private final Duration halfLife;
+    private final Duration bucket;
+
+    /** Views since the last flush; swapped out whole, so a view racing the swap may be lost */
+    private volatile ConcurrentHashMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /** Decayed scores relative to {@link #epoch}; guarded by this */
+    private final Map<Long, Double> scores = new HashMap<>();
+    private LocalDateTime epoch = LocalDateTime.now();
+
+    private volatile List<RouteRes> top = List.of();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public TrendingService(RouteViewCommands commands,
+                           RouteService routeService,
+                           @Value("${app.trending.max-tracked:100000}") int maxTracked,
+                           @Value("${app.trending.top-k:100}") int topK,
+                           @Value("${app.trending.window-days:7}") int windowDays,
+                           @Value("${app.trending.half-life-hours:24}") int halfLifeHours,
+                           @Value("${app.trending.bucket-minutes:60}") int bucketMinutes,
+                           @Value("${app.routes.batch-max-ids:300}") int batchMaxIds) {
+        this.commands = commands;
+        this.routeService = routeService;
+        this.maxTracked = maxTracked;
+        // The top list is resolved in one batch lookup, which takes at most batch-max-ids
+        this.topK = Math.max(1, Math.min(topK, batchMaxIds));
+        this.window = Duration.ofDays(Math.max(1, windowDays));
+        this.halfLife = Duration.ofHours(Math.max(1, halfLifeHours));
+        this.bucket = Duration.ofMinutes(Math.max(1, bucketMinutes));
+    }
+
+    /** Counts a view of a public route; memory only. */
+    public void recordView(long routeId) {
+        ConcurrentHashMap<Long, LongAdder> m = counts;
+        LongAdder adder = m.get(routeId);
+        if (adder == null) {
+            if (m.size() >= maxTracked) return; // full until the next flush
+            adder = m.computeIfAbsent(routeId, id -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /** Current top routes, best first (summaries, no geometry). */
+    public List<RouteRes> trending(int limit) {
+        List<RouteRes> current = top;
+        return current.size() <= limit ? current : current.subList(0, limit);
+    }
+
+    /* ------------ flush ------------ */
+
+    @Scheduled(fixedDelayString = "${app.trending.flush-ms:30000}")
+    public void flush() {
+        ConcurrentHashMap<Long, LongAdder> drained = counts;
+        if (!drained.isEmpty()) {
+            counts = new ConcurrentHashMap<>();
+            long[] ids = new long[drained.size()];
+            long[] views = new long[ids.length];
+            int n = 0;
+            for (Map.Entry<Long, LongAdder> e : drained.entrySet()) {
+                long v = e.getValue().sum();
+                if (v == 0 || n == ids.length) continue;
+                ids[n] = e.getKey();
+                views[n++] = v;
+            }
+            ids = Arrays.copyOf(ids, n);
+            views = Arrays.copyOf(views, n);
+
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                commands.addViews(bucketStart(now), ids, views);
+            } catch (RuntimeException ex) {
+                // Still ranked locally; lost for other nodes and the next rebuild
+                log.warn("Flushing {} route view counts failed: {}", n, ex.toString());
+            }
+            synchronized (this) {
+                double weight = weight(now);
+                for (int i = 0; i < n; i++) {
+                    if (scores.size() >= maxTracked && !scores.containsKey(ids[i])) continue;
+                    scores.merge(ids[i], views[i] * weight, Double::sum);
+                }
+            }
+        }
+        refreshTop();
+    }
+
+    /** Reloads scores from the buckets in the window (and drops buckets past it). */
+    @Scheduled(fixedDelayString = "${app.trending.rebuild-ms:300000}", initialDelayString = "${app.trending.rebuild-ms:300000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) return;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime from = now.minus(window);
+            List<RouteViewCommands.Score> loaded = commands.topScores(from, now, halfLife, maxTracked);
+            synchronized (this) {
+                // Views flushed while loading are in the buckets already, so replace, not merge
+                epoch = now;
+                scores.clear();
+                for (RouteViewCommands.Score s : loaded) scores.put(s.routeId(), s.score());
+            }
+            commands.deleteBefore(bucketStart(from).minus(bucket));
+            refreshTop();
+        } catch (RuntimeException ex) {
+            log.warn("Trending rebuild failed: {}", ex.toString());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread t = new Thread(this::rebuild, "trending-load");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** A route that is deleted or made private leaves the list right away. */
+    @TransactionalEventListener
+    public void onRouteChanged(RouteChangedEvent e) {
+        if (e.kind() != RouteChangedEvent.Kind.DELETED && e.isPublic()) return;
+        forget(e.routeId());
+    }
+
+    @EventListener
+    public void onRemoteChanges(RemoteRouteChangesEvent e) {
+        for (RemoteRouteChangesEvent.Change c : e.changes()) {
+            if (c.kind() == RouteChangedEvent.Kind.DELETED || !c.isPublic()) forget(c.routeId());
+        }
+    }
+
+    private void forget(long routeId) {
+        synchronized (this) {
+            scores.remove(routeId);
+        }
+        List<RouteRes> current = top;
+        if (current.stream().anyMatch(r -> r.getId() == routeId)) {
+            top = current.stream().filter(r -> r.getId() != routeId).toList();
+        }
+    }
+
+    /* ------------ ranking ------------ */
+
+    /** Top K by score with a size-K min-heap, resolved to public summaries. */
+    private void refreshTop() {
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(topK + 1, Map.Entry.comparingByValue());
+        synchronized (this) {
+            for (Map.Entry<Long, Double> e : scores.entrySet()) {
+                if (heap.size() < topK) {
+                    heap.add(Map.entry(e.getKey(), e.getValue()));
+                } else if (e.getValue() > heap.peek().getValue()) {
+                    heap.poll();
+                    heap.add(Map.entry(e.getKey(), e.getValue()));
+                }
+            }
+        }
+        List<Long> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) ids.add(heap.poll().getKey());
+        Collections.reverse(ids);
+        if (ids.isEmpty()) {
+            top = List.of();
+            return;
+        }
+        try {
+            // Anonymous viewer: only routes that are (still) public come back
+            top = routeService.getBatchForViewer(ids, null, false).stream()
+                    .filter(RouteRes::isPublic)
+                    .toList();
+        } catch (RuntimeException ex) {
+            log.warn("Resolving trending routes failed: {}", ex.toString());
+        }
+    }
+
+    /** Weight of a view at {@code t}: 2^((t - epoch) / halfLife), caller holds the lock */
+    private double weight(LocalDateTime t) {
+        return Math.pow(2, Duration.between(epoch, t).toMillis() / (double) halfLife.toMillis());
+    }
+
+    private LocalDateTime bucketStart(LocalDateTime t) {
+        long minutes = bucket.toMinutes();
+        LocalDateTime day = t.truncatedTo(ChronoUnit.DAYS);
+        long sinceMidnight = Duration.between(day, t).toMinutes();
+        return day.plusMinutes(sinceMidnight - sinceMidnight % minutes);
+    }
+}
@@ -0,0 +1,150 @@
+package com.orienteering.service;
+
+import com.orienteering.domain.UserRouteStats;
+import com.orienteering.dto.UserRouteStatsRes;
+import com.orienteering.repo.UserRouteStatsCommands;
+import com.orienteering.repo.UserRouteStatsRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-owner route totals. Route writes call {@link #onChange} in their own transaction
+ * with the route's facts before and after, so the stats row is updated (and locked)
+ * atomically with the route. Longest distance and last-created are only recomputed
+ * from the owner's routes when the route that may have defined them goes away or shrinks.
+ * {@link #reconcile} rebuilds everything in batches, e.g. after the first deployment.
+ */
+@Service
+public class UserRouteStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserRouteStatsService.class);
+
+    /** What the stats depend on for one route; null stands for "no route" */
+    public record RouteFacts(boolean isPublic, Integer distanceMeters, LocalDateTime createdAt) {}
+
+    private final UserRouteStatsCommands commands;
+    private final UserRouteStatsRepo repo;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    public UserRouteStatsService(UserRouteStatsCommands commands,
+                                 UserRouteStatsRepo repo,
+                                 TransactionTemplate tx,
+                                 @Value("${app.stats.reconcile-batch-size:500}") int batchSize) {
+        this.commands = commands;
+        this.repo = repo;
+        this.tx = tx;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /* ------------ write path ------------ */
+
+    /** Must run inside the route write; JPA changes must be flushed before the call. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onChange(String owner, RouteFacts before, RouteFacts after) {
+        if (Objects.equals(before, after)) return;
+
+        long dCount = (after != null ? 1 : 0) - (before != null ? 1 : 0);
+        long dPublic = (after != null && after.isPublic() ? 1 : 0) - (before != null && before.isPublic() ? 1 : 0);
+        long dDistance = distance(after) - distance(before);
+        UserRouteStatsCommands.Extremes now = commands.applyDelta(owner, dCount, dPublic, dDistance,
+                after == null ? null : after.distanceMeters(),
+                after == null ? null : after.createdAt());
+
+        if (before == null) return;
+        boolean lostLongest = before.distanceMeters() != null
+                && (after == null || after.distanceMeters() == null || after.distanceMeters() < before.distanceMeters())
+                && now.longestDistanceMeters() != null
+                && before.distanceMeters() >= now.longestDistanceMeters();
+        boolean lostLast = after == null && before.createdAt() != null
+                && now.lastCreatedAt() != null
+                && !before.createdAt().isBefore(now.lastCreatedAt());
+        if (lostLongest || lostLast) commands.recomputeExtremes(owner);
+    }
+
+    private static long distance(RouteFacts f) {
+        return f == null || f.distanceMeters() == null ? 0 : f.distanceMeters();
+    }
+
+    /* ------------ read path ------------ */
+
+    /** Primary-key lookup; an owner without routes gets zeros. */
+    @Transactional(readOnly = true)
+    public UserRouteStatsRes get(String username, boolean includePrivate) {
+        UserRouteStats s = repo.findById(username.toLowerCase()).orElse(null);
+        UserRouteStatsRes res = new UserRouteStatsRes();
+        res.setUsername(username);
+        if (s == null) {
+            res.setPublicCount(0L);
+            if (includePrivate) {
+                res.setRouteCount(0L);
+                res.setTotalDistanceMeters(0L);
+            }
+            return res;
+        }
+        res.setPublicCount(s.getPublicCount());
+        if (includePrivate) {
+            // These include private routes, so only the owner sees them
+            res.setRouteCount(s.getRouteCount());
+            res.setTotalDistanceMeters(s.getTotalDistanceMeters());
+            res.setLongestDistanceMeters(s.getLongestDistanceMeters());
+            res.setLastCreatedAt(s.getLastCreatedAt() == null ? null
+                    : s.getLastCreatedAt().atZone(ZoneId.systemDefault()).toInstant());
+        }
+        return res;
+    }
+
+    /* ------------ reconciliation ------------ */
+
+    /** First start with the table in place: build it from existing routes. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!commands.isEmpty()) return;
+        Thread t = new Thread(this::reconcile, "user-stats-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Scheduled(cron = "${app.stats.reconcile-cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /** Rewrites every owner's row from the routes table, one short transaction per batch. */
+    public void reconcile() {
+        if (!reconciling.compareAndSet(false, true)) return;
+        try {
+            long started = System.nanoTime();
+            int owners = 0;
+            String after = "";
+            while (true) {
+                String from = after;
+                List<String> batch = tx.execute(s -> commands.ownersAfter(from, batchSize));
+                if (batch == null || batch.isEmpty()) break;
+                tx.executeWithoutResult(s -> commands.reconcile(batch));
+                owners += batch.size();
+                after = batch.get(batch.size() - 1);
+            }
+            log.info("Reconciled route stats for {} owners in {} ms", owners, (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.warn("Route stats reconciliation failed: {}", ex.toString());
+        } finally {
+            reconciling.set(false);
+        }
+    }
+}
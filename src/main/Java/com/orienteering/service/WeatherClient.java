@@ -0,0 +1,8 @@
+package com.orienteering.service;
+
+import com.orienteering.dto.WeatherRes;
+
+/** Upstream current-weather source; swap the bean (or its base URL) for a stub in tests. */
+public interface WeatherClient {
+    WeatherRes current(double lat, double lng);
+}
@@ -0,0 +1,105 @@
+package com.orienteering.service;
+
+import com.orienteering.dto.WeatherRes;
+import com.orienteering.geo.Geohash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.concurrent.*;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Current weather per geohash cell. Fresh entries are served from memory; concurrent
+ * misses for one cell share a single upstream call; when upstream fails, the last
+ * value is served (flagged stale) until it is older than max-stale.
+ */
+@Service
+public class WeatherService {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherService.class);
+
+    private final WeatherClient client;
+    private final int precision;
+    private final long ttlMs;
+    private final long maxStaleMs;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    public WeatherService(
+            WeatherClient client,
+            @Value("${app.weather.geohash-precision:5}") int precision,
+            @Value("${app.weather.ttl-seconds:900}") long ttlSeconds,
+            @Value("${app.weather.max-stale-seconds:21600}") long maxStaleSeconds,
+            @Value("${app.weather.max-entries:10000}") int maxEntries
+    ) {
+        this.client = client;
+        this.precision = precision;
+        this.ttlMs = ttlSeconds * 1000;
+        this.maxStaleMs = maxStaleSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    public WeatherRes current(double lat, double lng) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new IllegalArgumentException("Coordinates out of range");
+        }
+        String cell = Geohash.encode(lat, lng, precision);
+        long now = System.currentTimeMillis();
+        Entry cached = cache.get(cell);
+        if (cached != null && now - cached.fetchedAt < ttlMs) {
+            return cached.value.withMeta(cell, Instant.ofEpochMilli(cached.fetchedAt), false);
+        }
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> leader = inFlight.putIfAbsent(cell, mine);
+        try {
+            Entry fresh = leader != null ? leader.get() : fetch(cell, mine);
+            return fresh.value.withMeta(cell, Instant.ofEpochMilli(fresh.fetchedAt), false);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return staleOrFail(cell, cached, ex);
+        } catch (ExecutionException | RuntimeException ex) {
+            return staleOrFail(cell, cached, ex);
+        }
+    }
+
+    /** The single upstream call for this cell; followers wait on {@code promise}. */
+    private Entry fetch(String cell, CompletableFuture<Entry> promise) {
+        try {
+            // Query the cell centre so every caller in the cell gets the same answer
+            double[] c = Geohash.center(cell);
+            Entry e = new Entry(client.current(c[0], c[1]), System.currentTimeMillis());
+            if (cache.size() >= maxEntries) evictExpired();
+            cache.put(cell, e);
+            promise.complete(e);
+            return e;
+        } catch (RuntimeException ex) {
+            promise.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(cell, promise);
+        }
+    }
+
+    private WeatherRes staleOrFail(String cell, Entry cached, Exception cause) {
+        if (cached != null && System.currentTimeMillis() - cached.fetchedAt < maxStaleMs) {
+            log.warn("Weather upstream failed for {}, serving stale value: {}", cell, cause.getMessage());
+            return cached.value.withMeta(cell, Instant.ofEpochMilli(cached.fetchedAt), true);
+        }
+        throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Weather service unavailable");
+    }
+
+    private void evictExpired() {
+        long cutoff = System.currentTimeMillis() - maxStaleMs;
+        cache.values().removeIf(e -> e.fetchedAt < cutoff);
+    }
+
+    private record Entry(WeatherRes value, long fetchedAt) {}
+}
@@ -0,0 +1,40 @@
+package com.orienteering.web;
+
+import com.orienteering.config.EndpointClass;
+import com.orienteering.config.RateLimitClass;
+import com.orienteering.config.FlightRecorderConfig;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/** Operational endpoints; /api/admin/** requires the ADMIN role (see SecurityConfig). */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final FlightRecorderConfig flightRecorder;
+
+    public AdminController(FlightRecorderConfig flightRecorder) {
+        this.flightRecorder = flightRecorder;
+    }
+
+    /** Last N minutes of the continuous JFR recording as a .jfr file (kept in app.jfr.dump-dir until it expires) */
+    @RateLimitClass(EndpointClass.STREAM)
+    @PostMapping("/jfr/dump")
+    public ResponseEntity<Resource> jfrDump(@RequestParam(value = "minutes", defaultValue = "5") int minutes)
+            throws IOException {
+        Path file = flightRecorder.dump(minutes);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file));
+    }
+}
@@ -0,0 +1,140 @@
+// src/main/java/com/orienteering/web/BundleController.java
+package com.orienteering.web;
+
+import com.orienteering.config.EndpointClass;
+import com.orienteering.config.RateLimitClass;
+import com.orienteering.dto.BundleReq;
+import com.orienteering.dto.BundleRes;
+import com.orienteering.service.OfflineBundleService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+@RestController
+@RequestMapping("/api/bundles")
+public class BundleController {
+
+    private final OfflineBundleService bundles;
+
+    public BundleController(OfflineBundleService bundles) {
+        this.bundles = bundles;
+    }
+
+    /** Bundle of public routes + checkpoints in a bbox; 202 while it is being built */
+    @PostMapping
+    public ResponseEntity<BundleRes> request(@RequestBody BundleReq req) {
+        BundleRes res = bundles.request(req);
+        HttpStatus status = "BUILDING".equals(res.getStatus()) ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(res);
+    }
+
+    /** Build state (poll until READY) */
+    @GetMapping("/{id}")
+    public BundleRes status(@PathVariable("id") String id) {
+        return bundles.status(id);
+    }
+
+    /**
+     * The bundle file (gzipped JSON). Supports a single byte range for resuming; the
+     * file is immutable, so the id doubles as ETag. Uses Tomcat's sendfile when the
+     * connector offers it, otherwise FileChannel.transferTo.
+     */
+    @RateLimitClass(EndpointClass.STREAM)
+    @GetMapping("/{id}/download")
+    public void download(@PathVariable("id") String id,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        Path file = bundles.readyFile(id);
+        long size = Files.size(file);
+        String etag = "\"" + id + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0, end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] r = parseRange(range, size);
+            if (r == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (r.length == 2) {
+                start = r[0];
+                end = r[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        long length = end - start + 1;
+
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orienteering-" + id + ".json.gz\"");
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) return;
+
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            // The connector streams the file from the page cache after we return
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", start + length);
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long pos = start, remaining = length;
+            while (remaining > 0) {
+                long n = ch.transferTo(pos, remaining, out);
+                if (n <= 0) break;
+                pos += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    /**
+     * "bytes=a-b", "bytes=a-" or "bytes=-n" to {start, end}; an empty array means
+     * "send everything" (multi-range or unknown unit), null means unsatisfiable.
+     */
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            String a = spec.substring(0, dash).trim(), b = spec.substring(dash + 1).trim();
+            long start, end;
+            if (a.isEmpty()) {
+                long suffix = Long.parseLong(b);
+                if (suffix <= 0) return null;
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(a);
+                end = b.isEmpty() ? size - 1 : Math.min(Long.parseLong(b), size - 1);
+            }
+            if (start >= size || start > end) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException ex) {
+            return new long[0];
+        }
+    }
+}
@@ -1,38 +1,161 @@
 // src/main/java/com/orienteering/web/GeoController.java
 package com.orienteering.web;
 
+import com.orienteering.config.EndpointClass;
+import com.orienteering.config.RateLimitClass;
 import com.orienteering.domain.Route;
+import com.orienteering.dto.ElevationProfileRes;
+import com.orienteering.dto.RouteClusterRes;
+import com.orienteering.dto.LoopRouteRes;
+import com.orienteering.dto.WeatherRes;
+import com.orienteering.repo.RouteView;
+import com.orienteering.service.ElevationService;
+import com.orienteering.service.HeatmapService;
+import com.orienteering.service.LoopRouteService;
+import com.orienteering.service.RouteClusterIndex;
 import com.orienteering.service.RouteService;
-import org.locationtech.jts.io.WKTWriter;
+import com.orienteering.service.WeatherService;
 import org.springframework.http.*;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/geo")
+@RateLimitClass(EndpointClass.GEOM)
 public class GeoController {
 
     private final RouteService routeService;
+    private final LoopRouteService loopRouteService;
+    private final WeatherService weatherService;
+    private final HeatmapService heatmapService;
+    private final RouteClusterIndex clusterIndex;
 
-    public GeoController(RouteService routeService) {
+    public GeoController(RouteService routeService,
+                         LoopRouteService loopRouteService,
+                         WeatherService weatherService,
+                         HeatmapService heatmapService,
+                         RouteClusterIndex clusterIndex) {
         this.routeService = routeService;
+        this.loopRouteService = loopRouteService;
+        this.weatherService = weatherService;
+        this.heatmapService = heatmapService;
+        this.clusterIndex = clusterIndex;
     }
 
+    /** Public route starts clustered for the zoom level; bbox = minLng,minLat,maxLng,maxLat */
+    @GetMapping("/routes/clusters")
+    public List<RouteClusterRes> routeClusters(@RequestParam("bbox") double[] bbox,
+                                               @RequestParam("zoom") int zoom) {
+        if (bbox.length != 4) {
+            throw new IllegalArgumentException("bbox must be minLng,minLat,maxLng,maxLat");
+        }
+        return clusterIndex.clusters(bbox[0], bbox[1], bbox[2], bbox[3], zoom);
+    }
+
+    /** Geometry as WKT, or as an encoded polyline (1e5) with format=polyline; served from the read model */
     @GetMapping("/routes/{id}/geom")
-    public ResponseEntity<?> routeGeom(@PathVariable("id") Long id) {
-        Route r = routeService.findById(id); // your existing method
-        if (r == null) {
+    public ResponseEntity<?> routeGeom(@PathVariable("id") Long id,
+                                       @RequestParam(value = "format", defaultValue = "wkt") String format,
+                                       Authentication auth) {
+        RouteView v = routeService.viewById(id);
+        String viewer = auth != null ? auth.getName() : null;
+        if (!v.isPublic() && (viewer == null || !viewer.equalsIgnoreCase(v.ownerUsername()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Route is private: " + id));
+        }
+        if (!v.hasGeom()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", "Route not found: " + id));
+                    .body(Map.of("error", "Route has no geometry: " + id));
+        }
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("id", v.id());
+        if ("polyline".equalsIgnoreCase(format)) {
+            body.put("polyline", v.geomPolyline());
+        } else {
+            body.put("wkt", v.geomWkt());
+        }
+        body.put("bbox", new double[]{v.bboxMinLng(), v.bboxMinLat(), v.bboxMaxLng(), v.bboxMaxLat()});
+        body.put("vertexCount", v.vertexCount());
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/routes/{id}/profile")
+    public ResponseEntity<?> routeProfile(@PathVariable("id") Long id, Authentication auth) {
+        Route r = routeService.findById(id);
+        String viewer = auth != null ? auth.getName() : null;
+        if (!r.isPublic() && (viewer == null || !viewer.equalsIgnoreCase(r.getOwnerUsername()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Route is private: " + id));
         }
-        if (r.getGeom() == null) {
+        if (r.getElevationProfile() == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "No elevation data for route: " + id));
+        }
+
+        float[][] profile = ElevationService.decodeProfile(r.getElevationProfile());
+        return ResponseEntity.ok(new ElevationProfileRes(
+                r.getId(), r.getAscentMeters(), r.getDescentMeters(), profile[0], profile[1]));
+    }
+
+    /** Candidate loop routes on trails, closest to the requested length first */
+    @GetMapping("/loops")
+    public List<LoopRouteRes> loops(
+            @RequestParam("lat") double lat,
+            @RequestParam("lng") double lng,
+            @RequestParam("lengthMeters") int lengthMeters,
+            @RequestParam(value = "count", defaultValue = "3") int count
+    ) {
+        return loopRouteService.loops(lat, lng, lengthMeters, Math.max(1, Math.min(count, 10)));
+    }
+
+    /** Current weather at a point (cached per geohash cell) */
+    @GetMapping("/weather")
+    public WeatherRes weather(@RequestParam("lat") double lat, @RequestParam("lng") double lng) {
+        return weatherService.current(lat, lng);
+    }
+
+    /** Current weather at the route's start point */
+    @GetMapping("/routes/{id}/weather")
+    public ResponseEntity<?> routeWeather(@PathVariable("id") Long id, Authentication auth) {
+        RouteView v = routeService.viewById(id);
+        String viewer = auth != null ? auth.getName() : null;
+        if (!v.isPublic() && (viewer == null || !viewer.equalsIgnoreCase(v.ownerUsername()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Route is private: " + id));
+        }
+        if (!v.hasGeom()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", "Route has no geometry: " + id));
         }
+        return ResponseEntity.ok(weatherService.current(v.startLat(), v.startLng()));
+    }
+
+    /** Popular-areas heatmap tile as PNG (256x256, transparent where empty) */
+    @GetMapping("/heatmap/{z}/{x}/{y}.png")
+    public ResponseEntity<byte[]> heatmapPng(@PathVariable("z") int z, @PathVariable("x") int x, @PathVariable("y") int y) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic())
+                .body(heatmapService.tilePng(z, x, y));
+    }
 
-        // return WKT (or GeoJSON if you prefer)
-        String wkt = new WKTWriter().write(r.getGeom());
-        return ResponseEntity.ok(Map.of("id", r.getId(), "wkt", wkt));
+    /** Popular-areas heatmap tile as raw counts (row-major, size x size; null when empty) */
+    @GetMapping("/heatmap/{z}/{x}/{y}.json")
+    public ResponseEntity<Map<String, Object>> heatmapJson(@PathVariable("z") int z, @PathVariable("x") int x, @PathVariable("y") int y) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("z", z);
+        body.put("x", x);
+        body.put("y", y);
+        body.put("size", HeatmapService.CELLS);
+        body.put("counts", heatmapService.tile(z, x, y));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic())
+                .body(body);
     }
 }
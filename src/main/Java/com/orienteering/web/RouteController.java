@@ -1,13 +1,29 @@
 // src/main/java/com/orienteering/web/RouteController.java
 package com.orienteering.web;
 
+import com.orienteering.config.EndpointClass;
+import com.orienteering.config.RateLimitClass;
+import com.orienteering.dto.NearbyRoutesRes;
+import com.orienteering.dto.RouteBatchReq;
+import com.orienteering.dto.RouteChangesRes;
 import com.orienteering.dto.RouteCreateReq;
+import com.orienteering.dto.RouteGeomPatchReq;
+import com.orienteering.dto.RoutePage;
+import com.orienteering.dto.RoutePatchReq;
 import com.orienteering.dto.RouteRes;
 import com.orienteering.dto.RouteUpdateReq;
+import com.orienteering.dto.SimilarRouteRes;
+import com.orienteering.dto.UserRouteStatsRes;
+import com.orienteering.service.RouteChangeFeed;
+import com.orienteering.service.RouteNearbyService;
 import com.orienteering.service.RouteService;
+import com.orienteering.service.RouteSimilarityService;
+import com.orienteering.service.TrendingService;
+import com.orienteering.service.UserRouteStatsService;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,48 +34,148 @@ import java.util.List;
 public class RouteController {
 
     private final RouteService routeService;
+    private final RouteSimilarityService similarity;
+    private final RouteChangeFeed changeFeed;
+    private final UserRouteStatsService stats;
+    private final RouteNearbyService nearbyRoutes;
+    private final TrendingService trending;
 
-    public RouteController(RouteService routeService) {
+    public RouteController(RouteService routeService, RouteSimilarityService similarity,
+                           RouteChangeFeed changeFeed, UserRouteStatsService stats,
+                           RouteNearbyService nearbyRoutes, TrendingService trending) {
         this.routeService = routeService;
+        this.similarity = similarity;
+        this.changeFeed = changeFeed;
+        this.stats = stats;
+        this.nearbyRoutes = nearbyRoutes;
+        this.trending = trending;
     }
 
-    /** Create route (requires auth) */
+    /** Create route (requires auth); 202 while a large geometry is still processing */
     @PostMapping
-    public RouteRes create(@Valid @RequestBody RouteCreateReq req, Authentication auth) {
+    public ResponseEntity<RouteRes> create(@Valid @RequestBody RouteCreateReq req, Authentication auth) {
         // Prefer email/username from the authenticated principal
         String user = auth != null ? auth.getName() : null;
-        return routeService.create(user, req);
+        return withStatus(routeService.create(user, req));
     }
 
-    /** List public routes (no auth required) */
+    /** List public routes (no auth required); content/number/size/totalElements/totalPages */
+    @RateLimitClass(EndpointClass.LIST)
     @GetMapping
-    public Page<RouteRes> listPublic(Pageable pageable) {
-        return routeService.listPublic(pageable);
+    public RoutePage listPublic(Pageable pageable) {
+        return RoutePage.of(routeService.listPublic(pageable));
     }
 
     /** List my routes (requires auth) */
+    @RateLimitClass(EndpointClass.LIST)
     @GetMapping("/mine")
     public List<RouteRes> mine(Authentication auth) {
         String user = auth != null ? auth.getName() : null;
         return routeService.mine(user);
     }
 
-    /** Route details for viewer (id is explicit) */
+    /** Created/updated/deleted routes since a cursor (omit since for everything) */
+    @RateLimitClass(EndpointClass.LIST)
+    @GetMapping("/changes")
+    public RouteChangesRes changes(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", defaultValue = "200") int limit,
+            Authentication auth
+    ) {
+        String viewer = auth != null ? auth.getName() : null;
+        return changeFeed.changesSince(since, viewer, limit);
+    }
+
+    /** A user's route totals (private totals only for the user themselves) */
+    @GetMapping("/stats/{username}")
+    public UserRouteStatsRes userStats(@PathVariable("username") String username, Authentication auth) {
+        String viewer = auth != null ? auth.getName() : null;
+        return stats.get(username, username.equalsIgnoreCase(viewer));
+    }
+
+    /** Public routes closest to a point (radius in meters, lengths in meters); page with after=nextCursor */
+    @RateLimitClass(EndpointClass.LIST)
+    @GetMapping("/nearby")
+    public NearbyRoutesRes nearby(
+            @RequestParam("lat") double lat,
+            @RequestParam("lng") double lng,
+            @RequestParam(value = "radius", defaultValue = "5000") double radius,
+            @RequestParam(value = "minLen", required = false) Integer minLen,
+            @RequestParam(value = "maxLen", required = false) Integer maxLen,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "20") int limit
+    ) {
+        return nearbyRoutes.nearby(lat, lng, radius, minLen, maxLen, after, limit);
+    }
+
+    /** Public routes with the most (recent) views this week, best first */
+    @RateLimitClass(EndpointClass.LIST)
+    @GetMapping("/trending")
+    public List<RouteRes> trending(@RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return trending.trending(Math.max(1, limit));
+    }
+
+    /** Route details for viewer (id is explicit); views of public routes count towards trending */
     @GetMapping("/{id}")
     public RouteRes details(@PathVariable("id") Long id, Authentication auth) {
         String viewer = auth != null ? auth.getName() : null;
-        return routeService.getForViewer(id, viewer);
+        RouteRes res = routeService.getForViewer(id, viewer);
+        if (res.isPublic()) trending.recordView(id);
+        return res;
+    }
+
+    /** Details for many routes in one request (same visibility rules as single details) */
+    @RateLimitClass(EndpointClass.LIST)
+    @PostMapping("/batch")
+    public List<RouteRes> batch(@Valid @RequestBody RouteBatchReq req, Authentication auth) {
+        String viewer = auth != null ? auth.getName() : null;
+        return routeService.getBatchForViewer(req.getIds(), viewer, req.isIncludeGeom());
+    }
+
+    /** Routes that retrace this one, closest first (public ones plus the viewer's own) */
+    @RateLimitClass(EndpointClass.GEOM)
+    @GetMapping("/{id}/similar")
+    public List<SimilarRouteRes> similar(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestParam(value = "maxMeters", required = false) Double maxMeters,
+            Authentication auth
+    ) {
+        String viewer = auth != null ? auth.getName() : null;
+        return similarity.similarTo(id, viewer, Math.max(1, Math.min(limit, 100)), maxMeters);
     }
 
-    /** Update route (requires auth) */
+    /** Update route (requires auth); 202 while a large geometry is still processing */
     @PutMapping("/{id}")
-    public RouteRes update(
+    public ResponseEntity<RouteRes> update(
             @PathVariable("id") Long id,
             @Valid @RequestBody RouteUpdateReq req,
             Authentication auth
     ) {
         String user = auth != null ? auth.getName() : null;
-        return routeService.update(id, req, user);
+        return withStatus(routeService.update(id, req, user));
+    }
+
+    /** Partial metadata update (requires auth); 409 when the sent version is stale */
+    @PatchMapping("/{id}")
+    public RouteRes patch(
+            @PathVariable("id") Long id,
+            @Valid @RequestBody RoutePatchReq req,
+            Authentication auth
+    ) {
+        String user = auth != null ? auth.getName() : null;
+        return routeService.patch(id, req, user);
+    }
+
+    /** Vertex-range edits to the geometry (requires auth); 409 when the sent version is stale */
+    @PatchMapping("/{id}/geom")
+    public RouteRes patchGeometry(
+            @PathVariable("id") Long id,
+            @Valid @RequestBody RouteGeomPatchReq req,
+            Authentication auth
+    ) {
+        String user = auth != null ? auth.getName() : null;
+        return routeService.patchGeometry(id, req, user);
     }
 
     /** Delete route (requires auth) */
@@ -68,4 +184,9 @@ public class RouteController {
         String user = auth != null ? auth.getName() : null;
         routeService.delete(id, user);
     }
+
+    private static ResponseEntity<RouteRes> withStatus(RouteRes res) {
+        HttpStatus status = "PROCESSING".equals(res.getStatus()) ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(res);
+    }
 }
@@ -0,0 +1,149 @@
+package com.orienteering.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.orienteering.config.HotPathEvent;
+import com.orienteering.dto.RoutePage;
+import com.orienteering.dto.RouteRes;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Hand-written serializers for the route list and detail responses, the bulk of API
+ * traffic. Same JSON as the bean serializer produced (names, nulls included), but
+ * written straight to the generator with pre-encoded field names: no property
+ * introspection, no per-field serializer dispatch, and the geometry WKT (already a
+ * read-model column) is copied once into the output buffer.
+ * Keep in step with {@link RouteRes} when fields are added.
+ */
+@JsonComponent
+public class RouteJsonComponent {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString DISTANCE = new SerializedString("distanceMeters");
+    private static final SerializableString PUBLIC = new SerializedString("public");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString ASCENT = new SerializedString("ascentMeters");
+    private static final SerializableString DESCENT = new SerializedString("descentMeters");
+    private static final SerializableString GEOM_WKT = new SerializedString("geomWkt");
+    private static final SerializableString BBOX = new SerializedString("bbox");
+    private static final SerializableString VERTEX_COUNT = new SerializedString("vertexCount");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString PROCESSING_ERROR = new SerializedString("processingError");
+    private static final SerializableString OWNER = new SerializedString("ownerUsername");
+    private static final SerializableString CAN_EDIT = new SerializedString("canEdit");
+    private static final SerializableString CHECKPOINTS = new SerializedString("checkpoints");
+
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString NUMBER = new SerializedString("number");
+    private static final SerializableString SIZE = new SerializedString("size");
+    private static final SerializableString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializableString TOTAL_PAGES = new SerializedString("totalPages");
+
+    public static class RouteResSerializer extends StdSerializer<RouteRes> {
+
+        public RouteResSerializer() {
+            super(RouteRes.class);
+        }
+
+        @Override
+        public void serialize(RouteRes r, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            HotPathEvent event = HotPathEvent.start(HotPathEvent.SERIALIZE);
+            try {
+                write(r, gen, provider);
+            } finally {
+                event.finish(r.getId() != null ? r.getId() : 0,
+                        r.getVertexCount() != null ? r.getVertexCount() : 0,
+                        r.getGeomWkt() != null ? r.getGeomWkt().length() : 0);
+            }
+        }
+
+        private void write(RouteRes r, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(r);
+            gen.writeFieldName(ID);
+            number(gen, r.getId());
+            gen.writeFieldName(NAME);
+            gen.writeString(r.getName());
+            gen.writeFieldName(DISTANCE);
+            number(gen, r.getDistanceMeters());
+            gen.writeFieldName(PUBLIC);
+            gen.writeBoolean(r.isPublic());
+            // Instants and checkpoints follow the mapper's configuration
+            provider.defaultSerializeField(CREATED_AT.getValue(), r.getCreatedAt(), gen);
+            gen.writeFieldName(ASCENT);
+            number(gen, r.getAscentMeters());
+            gen.writeFieldName(DESCENT);
+            number(gen, r.getDescentMeters());
+            gen.writeFieldName(GEOM_WKT);
+            gen.writeString(r.getGeomWkt());
+            gen.writeFieldName(BBOX);
+            double[] bbox = r.getBbox();
+            if (bbox == null) gen.writeNull();
+            else gen.writeArray(bbox, 0, bbox.length);
+            gen.writeFieldName(VERTEX_COUNT);
+            number(gen, r.getVertexCount());
+            gen.writeFieldName(VERSION);
+            number(gen, r.getVersion());
+            gen.writeFieldName(STATUS);
+            gen.writeString(r.getStatus());
+            gen.writeFieldName(PROCESSING_ERROR);
+            gen.writeString(r.getProcessingError());
+            gen.writeFieldName(OWNER);
+            gen.writeString(r.getOwnerUsername());
+            gen.writeFieldName(CAN_EDIT);
+            gen.writeBoolean(r.isCanEdit());
+            provider.defaultSerializeField(CHECKPOINTS.getValue(), r.getCheckpoints(), gen);
+            gen.writeEndObject();
+        }
+    }
+
+    public static class RoutePageSerializer extends StdSerializer<RoutePage> {
+
+        private final RouteResSerializer routes = new RouteResSerializer();
+
+        public RoutePageSerializer() {
+            super(RoutePage.class);
+        }
+
+        @Override
+        public void serialize(RoutePage page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(page);
+            gen.writeFieldName(CONTENT);
+            if (page.getContent() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray(page.getContent(), page.getContent().size());
+                for (RouteRes r : page.getContent()) {
+                    if (r == null) gen.writeNull();
+                    else routes.serialize(r, gen, provider);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeFieldName(NUMBER);
+            gen.writeNumber(page.getNumber());
+            gen.writeFieldName(SIZE);
+            gen.writeNumber(page.getSize());
+            gen.writeFieldName(TOTAL_ELEMENTS);
+            gen.writeNumber(page.getTotalElements());
+            gen.writeFieldName(TOTAL_PAGES);
+            gen.writeNumber(page.getTotalPages());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void number(JsonGenerator gen, Long v) throws IOException {
+        if (v == null) gen.writeNull();
+        else gen.writeNumber(v);
+    }
+
+    private static void number(JsonGenerator gen, Integer v) throws IOException {
+        if (v == null) gen.writeNull();
+        else gen.writeNumber(v);
+    }
+}
@@ -0,0 +1,66 @@
+package com.orienteering.web;
+
+import com.orienteering.config.EndpointClass;
+import com.orienteering.config.RateLimitClass;
+import com.orienteering.dto.TrackPointsRes;
+import com.orienteering.dto.TrackRes;
+import com.orienteering.dto.TrackUploadReq;
+import com.orienteering.service.TrackService;
+import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tracks")
+public class TrackController {
+
+    private final TrackService trackService;
+
+    public TrackController(TrackService trackService) {
+        this.trackService = trackService;
+    }
+
+    /** Upload a recorded run of a route (requires auth) */
+    @PostMapping
+    public TrackRes upload(@Valid @RequestBody TrackUploadReq req, Authentication auth) {
+        String user = auth != null ? auth.getName() : null;
+        return trackService.upload(user, req);
+    }
+
+    /** Tracks recorded on a route: public ones plus the viewer's own */
+    @RateLimitClass(EndpointClass.LIST)
+    @GetMapping
+    public List<TrackRes> forRoute(@RequestParam("routeId") Long routeId, Authentication auth) {
+        String viewer = auth != null ? auth.getName() : null;
+        return trackService.forRoute(routeId, viewer);
+    }
+
+    @GetMapping("/{id}")
+    public TrackRes details(@PathVariable("id") Long id, Authentication auth) {
+        String viewer = auth != null ? auth.getName() : null;
+        return trackService.get(id, viewer);
+    }
+
+    /** Points in [from, to] (ISO-8601 instants, both optional); only overlapping chunks are decoded */
+    @RateLimitClass(EndpointClass.GEOM)
+    @GetMapping("/{id}/points")
+    public TrackPointsRes points(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            Authentication auth
+    ) {
+        String viewer = auth != null ? auth.getName() : null;
+        return trackService.points(id, from, to, viewer);
+    }
+
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable("id") Long id, Authentication auth) {
+        String user = auth != null ? auth.getName() : null;
+        trackService.delete(id, user);
+    }
+}
@@ -0,0 +1,139 @@
+package com.orienteering.geo;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The incremental length delta and envelope must match a full recompute of the
+ * edited line, wherever the splice lands.
+ */
+class LineSplicerTest {
+
+    private static final int N = 12;
+    private static final double[] NEW_POINTS = {23.7401, 37.9702, 23.7455, 37.9611, 23.7302, 37.9899};
+
+    @Test
+    void insertAtStartMiddleAndEnd() {
+        for (int at : new int[]{0, N / 2, N}) {
+            check("insert at " + at, at, at, 2);
+        }
+    }
+
+    @Test
+    void replaceAtStartMiddleAndEnd() {
+        check("replace at start", 0, 2, 3);
+        check("replace in the middle", N / 2 - 1, N / 2 + 2, 1);
+        check("replace at end", N - 2, N, 2);
+    }
+
+    @Test
+    void deleteAtStartMiddleAndEnd() {
+        check("delete at start", 0, 2, 0);
+        check("delete in the middle", N / 2 - 1, N / 2 + 1, 0);
+        check("delete at end", N - 3, N, 0);
+    }
+
+    @Test
+    void deletingTheBoundaryVertexShrinksTheEnvelope() {
+        double[] xy = line();
+        int east = 0;
+        for (int i = 1; i < N; i++) if (xy[2 * i] > xy[2 * east]) east = i;
+
+        LineSplicer s = splicer(xy);
+        s.splice(east, east + 1, new double[0], 0);
+
+        assertEquals(envelopeOf(spliced(xy, east, east + 1, new double[0], 0)), s.envelope());
+    }
+
+    @Test
+    void severalSplicesAccumulate() {
+        double[] xy = line();
+        LineSplicer s = splicer(xy);
+        double[] expected = xy;
+
+        s.splice(0, 0, NEW_POINTS, 1);
+        expected = spliced(expected, 0, 0, NEW_POINTS, 1);
+        s.splice(4, 7, NEW_POINTS, 3);
+        expected = spliced(expected, 4, 7, NEW_POINTS, 3);
+        s.splice(s.size() - 1, s.size(), new double[0], 0);
+        expected = spliced(expected, expected.length / 2 - 1, expected.length / 2, new double[0], 0);
+
+        assertEquals(length(expected) - length(xy), s.lengthDelta(), 1e-6);
+        assertEquals(envelopeOf(expected), s.envelope());
+        assertArrayEquals(expected, coords(s.toLineString(PackedGeometries.FACTORY)));
+    }
+
+    @Test
+    void rejectsRangesOutsideTheLine() {
+        LineSplicer s = splicer(line());
+        assertThrows(IllegalArgumentException.class, () -> s.splice(-1, 0, NEW_POINTS, 1));
+        assertThrows(IllegalArgumentException.class, () -> s.splice(3, 2, NEW_POINTS, 1));
+        assertThrows(IllegalArgumentException.class, () -> s.splice(N, N + 1, new double[0], 0));
+    }
+
+    private static void check(String what, int from, int to, int m) {
+        double[] xy = line();
+        LineSplicer s = splicer(xy);
+        s.splice(from, to, NEW_POINTS, m);
+
+        double[] expected = spliced(xy, from, to, NEW_POINTS, m);
+        assertEquals(length(expected) - length(xy), s.lengthDelta(), 1e-6, what + ": length delta");
+        assertEquals(envelopeOf(expected), s.envelope(), what + ": envelope");
+        assertArrayEquals(expected, coords(s.toLineString(PackedGeometries.FACTORY)), what + ": vertices");
+    }
+
+    /** A zig-zag whose extremes are spread over the line, so splices at either end move the envelope. */
+    private static double[] line() {
+        double[] xy = new double[N * 2];
+        for (int i = 0; i < N; i++) {
+            xy[2 * i] = 23.72 + i * 0.002 + (i % 3) * 0.0007;
+            xy[2 * i + 1] = 37.98 + (i % 2 == 0 ? 0.001 : -0.001) * i;
+        }
+        return xy;
+    }
+
+    private static LineSplicer splicer(double[] xy) {
+        LineString ls = PackedGeometries.lineString(PackedGeometries.FACTORY, xy.clone(), xy.length / 2);
+        return new LineSplicer(ls, ls.getEnvelopeInternal());
+    }
+
+    /** Full recompute: the vertices with [from, to) replaced by the first m pairs of ins. */
+    private static double[] spliced(double[] xy, int from, int to, double[] ins, int m) {
+        List<Double> out = new ArrayList<>();
+        for (int i = 0; i < from * 2; i++) out.add(xy[i]);
+        for (int i = 0; i < m * 2; i++) out.add(ins[i]);
+        for (int i = to * 2; i < xy.length; i++) out.add(xy[i]);
+        return out.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    private static double length(double[] xy) {
+        double total = 0;
+        for (int i = 1; i < xy.length / 2; i++) {
+            total += GeoMath.haversine(xy[2 * i - 1], xy[2 * i - 2], xy[2 * i + 1], xy[2 * i]);
+        }
+        return total;
+    }
+
+    private static Envelope envelopeOf(double[] xy) {
+        Envelope e = new Envelope();
+        for (int i = 0; i < xy.length / 2; i++) e.expandToInclude(xy[2 * i], xy[2 * i + 1]);
+        return e;
+    }
+
+    private static double[] coords(LineString ls) {
+        CoordinateSequence cs = ls.getCoordinateSequence();
+        double[] xy = new double[cs.size() * 2];
+        for (int i = 0; i < cs.size(); i++) {
+            xy[2 * i] = cs.getX(i);
+            xy[2 * i + 1] = cs.getY(i);
+        }
+        return xy;
+    }
+}
@@ -0,0 +1,100 @@
+package com.orienteering.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackCodecTest {
+
+    private static final double COORD_EPS = 0.5e-7;
+    private static final double ELEVATION_EPS = 0.05;
+
+    @Test
+    void roundTripsASteadyRun() {
+        List<TrackCodec.Point> points = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            points.add(new TrackCodec.Point(1_700_000_000_000L + i * 1000L,
+                    37.9838 + i * 2.3e-5, 23.7275 - i * 1.1e-5, 120.0 + i * 0.1));
+        }
+
+        byte[] data = TrackCodec.encode(points, 0, points.size());
+
+        assertSamePoints(points, TrackCodec.decode(data, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertTrue(data.length < points.size() * 10, "steady 1 Hz points should stay under 10 bytes each");
+    }
+
+    @Test
+    void roundTripsAcrossTheAntimeridian() {
+        List<TrackCodec.Point> points = List.of(
+                new TrackCodec.Point(1000, -16.5, 179.9999999, null),
+                new TrackCodec.Point(2000, -16.5001, -179.9999999, null),
+                new TrackCodec.Point(3500, -16.5002, 179.9999990, null),
+                new TrackCodec.Point(4000, -16.5003, -180.0, null));
+
+        byte[] data = TrackCodec.encode(points, 0, points.size());
+
+        assertSamePoints(points, TrackCodec.decode(data, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void fillsElevationGapsFromTheNeighbouringFix() {
+        List<TrackCodec.Point> points = List.of(
+                new TrackCodec.Point(1000, 46.0, 7.0, null),
+                new TrackCodec.Point(2000, 46.0001, 7.0001, 1510.3),
+                new TrackCodec.Point(3000, 46.0002, 7.0002, null),
+                new TrackCodec.Point(4000, 46.0003, 7.0003, 1498.7),
+                new TrackCodec.Point(5000, 46.0004, 7.0004, null));
+
+        List<TrackCodec.Point> decoded = TrackCodec.decode(TrackCodec.encode(points, 0, points.size()),
+                Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertEquals(5, decoded.size());
+        // Leading gap takes the first known value, later gaps the previous one
+        double[] expected = {1510.3, 1510.3, 1510.3, 1498.7, 1498.7};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], decoded.get(i).elevation(), ELEVATION_EPS, "elevation at " + i);
+        }
+    }
+
+    @Test
+    void leavesElevationOutWhenNoFixHasOne() {
+        List<TrackCodec.Point> points = List.of(
+                new TrackCodec.Point(1000, 46.0, 7.0, null),
+                new TrackCodec.Point(2000, 46.0001, 7.0001, null));
+
+        List<TrackCodec.Point> decoded = TrackCodec.decode(TrackCodec.encode(points, 0, points.size()),
+                Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertSamePoints(points, decoded);
+        assertNull(decoded.get(1).elevation());
+    }
+
+    @Test
+    void decodesOnlyTheRequestedWindowOfASlice() {
+        List<TrackCodec.Point> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // Irregular intervals exercise the delta-of-delta time column
+            points.add(new TrackCodec.Point(10_000L + i * 1000L + (i % 3) * 170L, 60.0 + i * 1e-4, 24.9, 10.0));
+        }
+
+        byte[] data = TrackCodec.encode(points, 20, 80);
+        List<TrackCodec.Point> window = TrackCodec.decode(data, points.get(30).timeMillis(), points.get(39).timeMillis());
+
+        assertSamePoints(points.subList(30, 40), window);
+    }
+
+    private static void assertSamePoints(List<TrackCodec.Point> expected, List<TrackCodec.Point> actual) {
+        assertEquals(expected.size(), actual.size(), "point count");
+        for (int i = 0; i < expected.size(); i++) {
+            TrackCodec.Point e = expected.get(i), a = actual.get(i);
+            assertEquals(e.timeMillis(), a.timeMillis(), "time at " + i);
+            assertEquals(e.lat(), a.lat(), COORD_EPS, "lat at " + i);
+            assertEquals(e.lng(), a.lng(), COORD_EPS, "lng at " + i);
+            // Gaps are filled on decode; fillsElevationGapsFromTheNeighbouringFix covers them
+            if (e.elevation() != null) assertEquals(e.elevation(), a.elevation(), ELEVATION_EPS, "elevation at " + i);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.orienteering.web;
+
+import com.orienteering.domain.Route;
+import com.orienteering.geo.PackedGeometries;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.WKTReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinate[]-backed against {@link PackedGeometries} line strings on the way into a
+ * {@link Route}: parsing an upload into {@code setGeom}, and loading a row the way
+ * Hibernate does (field set from the decoded geometry, then the {@code @PostLoad} hook).
+ * {@code parseArray} reads into JTS's default sequence, which {@code setGeom} then copies;
+ * {@code loadArray} skips the hook and keeps it, as before geometries were packed.
+ * Run with the allocation profiler, e.g.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="PackedGeometries"
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="PackedGeometries.load -p vertices=5000"
+ * </pre>
+ * and compare gc.alloc.rate.norm, gc.count and gc.time. Setup prints the retained bytes
+ * per vertex of each kind of line (JOL, shared factory excluded) and fails if the two
+ * parse to different coordinates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class PackedGeometriesBenchmark {
+
+    /** What Hibernate uses to populate the entity and run its callback */
+    private static final VarHandle GEOM;
+    private static final MethodHandle POST_LOAD;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(Route.class, MethodHandles.lookup());
+            GEOM = lookup.findVarHandle(Route.class, "geom", LineString.class);
+            POST_LOAD = lookup.findVirtual(Route.class, "packGeom", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Lines {
+        @Param({"500", "5000"})
+        public int vertices;
+
+        /** The upload pipeline's precision model, once with each sequence factory */
+        final GeometryFactory arrayFactory = new GeometryFactory(new PrecisionModel(1e7), PackedGeometries.SRID);
+        final GeometryFactory packedFactory = PackedGeometries.factory(new PrecisionModel(1e7));
+
+        String wkt;
+        /** Stands in for the column hibernate-spatial decodes */
+        byte[] wkb;
+
+        @Setup
+        public void setup() throws ParseException {
+            StringBuilder sb = new StringBuilder(vertices * 24).append("LINESTRING(");
+            for (int i = 0; i < vertices; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(String.format(Locale.ROOT, "%.7f %.7f", 23.7 + i * 1e-5, 37.95 + i * 7e-6));
+            }
+            wkt = sb.append(')').toString();
+
+            LineString array = (LineString) new WKTReader(arrayFactory).read(wkt);
+            LineString packed = (LineString) new WKTReader(packedFactory).read(wkt);
+            if (!array.equalsExact(packed)) {
+                throw new IllegalStateException("Coordinate[] and packed lines differ");
+            }
+            wkb = new WKBWriter().write(array);
+
+            System.out.printf(Locale.ROOT, "%nRetained per vertex at %d vertices: Coordinate[] %.1f B, packed %.1f B%n",
+                    vertices, bytesPerVertex(array), bytesPerVertex(packed));
+        }
+
+        private double bytesPerVertex(LineString ls) {
+            ls.getEnvelopeInternal(); // cached on the line once setGeom has run
+            long size = GraphLayout.parseInstance(ls)
+                    .subtract(GraphLayout.parseInstance(ls.getFactory()))
+                    .totalSize();
+            return (double) size / vertices;
+        }
+    }
+
+    @Benchmark
+    public Route parseArray(Lines l) throws ParseException {
+        return parse(l.arrayFactory, l.wkt);
+    }
+
+    @Benchmark
+    public Route parsePacked(Lines l) throws ParseException {
+        return parse(l.packedFactory, l.wkt);
+    }
+
+    /** Before packing: the entity keeps the Coordinate[] line it was loaded with */
+    @Benchmark
+    public Route loadArray(Lines l) throws ParseException {
+        return load(l, false);
+    }
+
+    @Benchmark
+    public Route loadPacked(Lines l) throws ParseException {
+        return load(l, true);
+    }
+
+    private static Route parse(GeometryFactory factory, String wkt) throws ParseException {
+        Route route = new Route();
+        route.setGeom((LineString) new WKTReader(factory).read(wkt));
+        return route;
+    }
+
+    private static Route load(Lines l, boolean postLoad) throws ParseException {
+        Route route = new Route();
+        GEOM.set(route, (LineString) new WKBReader(l.arrayFactory).read(l.wkb));
+        if (postLoad) {
+            try {
+                POST_LOAD.invokeExact(route);
+            } catch (Throwable ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return route;
+    }
+}
@@ -0,0 +1,157 @@
+package com.orienteering.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.orienteering.dto.CheckpointDto;
+import com.orienteering.dto.RoutePage;
+import com.orienteering.dto.RouteRes;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson's bean serializer against {@link RouteJsonComponent} for the two payloads it
+ * was written for: a page of route summaries and one route's details with geometry.
+ * Run with the allocation profiler, e.g.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec                      # all, with -prof gc
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="RouteJson.*details -p vertices=5000"
+ * </pre>
+ * and compare time/op and gc.alloc.rate.norm (bytes per serialized payload).
+ * Setup fails if the two serializers do not produce the same JSON.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class RouteJsonBenchmark {
+
+    @State(Scope.Thread)
+    public static class Mappers {
+        ObjectMapper bean;
+        ObjectMapper component;
+        /** Reused like a servlet response buffer, so only the serializers' own garbage is measured */
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+
+        @Setup
+        public void setup() {
+            bean = mapper(null);
+            SimpleModule module = new SimpleModule();
+            module.addSerializer(RouteRes.class, new RouteJsonComponent.RouteResSerializer());
+            module.addSerializer(RoutePage.class, new RouteJsonComponent.RoutePageSerializer());
+            component = mapper(module);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Page {
+        @Param({"50"})
+        public int pageSize;
+
+        RoutePage page;
+
+        @Setup
+        public void setup(Mappers m) throws IOException {
+            List<RouteRes> summaries = new ArrayList<>(pageSize);
+            for (int i = 0; i < pageSize; i++) summaries.add(route(i, 0));
+            page = new RoutePage(summaries, 0, pageSize, 10_000, 10_000 / pageSize);
+            checkSame(m, page);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Details {
+        @Param({"500", "5000"})
+        public int vertices;
+
+        RouteRes details;
+
+        @Setup
+        public void setup(Mappers m) throws IOException {
+            details = route(42, vertices);
+            checkSame(m, details);
+        }
+    }
+
+    @Benchmark
+    public int pageBean(Mappers m, Page p) throws IOException {
+        return write(m, m.bean, p.page);
+    }
+
+    @Benchmark
+    public int pageComponent(Mappers m, Page p) throws IOException {
+        return write(m, m.component, p.page);
+    }
+
+    @Benchmark
+    public int detailsBean(Mappers m, Details d) throws IOException {
+        return write(m, m.bean, d.details);
+    }
+
+    @Benchmark
+    public int detailsComponent(Mappers m, Details d) throws IOException {
+        return write(m, m.component, d.details);
+    }
+
+    private static void checkSame(Mappers m, Object payload) throws IOException {
+        if (!m.bean.readTree(m.bean.writeValueAsBytes(payload))
+                .equals(m.bean.readTree(m.component.writeValueAsBytes(payload)))) {
+            throw new IllegalStateException("Serializers disagree on " + payload.getClass().getSimpleName());
+        }
+    }
+
+    private static int write(Mappers m, ObjectMapper mapper, Object payload) throws IOException {
+        m.out.reset();
+        mapper.writeValue(m.out, payload);
+        return m.out.size();
+    }
+
+    /** The parts of Spring Boot's mapper setup that matter for these payloads */
+    private static ObjectMapper mapper(SimpleModule extra) {
+        JsonMapper.Builder b = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (extra != null) b.addModule(extra);
+        return b.build();
+    }
+
+    private static RouteRes route(long id, int vertices) {
+        RouteRes r = new RouteRes();
+        r.setId(id);
+        r.setName("Route " + id);
+        r.setDistanceMeters(5000 + (int) id);
+        r.setPublic(true);
+        r.setCreatedAt(Instant.parse("2024-05-01T10:15:30Z").plusSeconds(id));
+        r.setAscentMeters(120);
+        r.setDescentMeters(118);
+        r.setBbox(new double[]{23.70, 37.95, 23.78, 38.01});
+        r.setVersion(3L);
+        r.setStatus("READY");
+        r.setOwnerUsername("runner" + id + "@example.com");
+        if (vertices > 0) {
+            StringBuilder wkt = new StringBuilder(vertices * 24).append("LINESTRING(");
+            for (int i = 0; i < vertices; i++) {
+                if (i > 0) wkt.append(", ");
+                wkt.append(String.format(Locale.ROOT, "%.7f %.7f", 23.7 + i * 1e-5, 37.95 + i * 7e-6));
+            }
+            r.setGeomWkt(wkt.append(')').toString());
+            r.setVertexCount(vertices);
+            r.setCanEdit(true);
+            r.setCheckpoints(List.of(new CheckpointDto(0, 37.95, 23.7, "Start"),
+                    new CheckpointDto(1, 37.97, 23.73, "Water")));
+        } else {
+            r.setVertexCount(800);
+        }
+        return r;
+    }
+}